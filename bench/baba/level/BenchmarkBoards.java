@@ -0,0 +1,113 @@
+package baba.level;
+
+import baba.rules.Rule;
+import baba.utils.Direction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boards used by the benchmarks. A board is named after a level of res/levels, optionally followed by
+ * {@code @N} to tile the level N times in each direction, giving large boards with many rules.
+ * The board {@code generated@N} is a N by N level made by {@link LevelGenerator}, always with the same seed.
+ */
+public final class BenchmarkBoards {
+    private static final String LEVELS_FOLDER = "res/levels";
+    private static final String GENERATED = "generated";
+    private static final long GENERATOR_SEED = 42;
+
+    private BenchmarkBoards() {}
+
+    /**
+     * Return the starting rules of the game.
+     * @return the default starting rules.
+     */
+    public static List<Rule> startingRules() {
+        return List.of(new Rule("TEXT", "IS", "PUSH"));
+    }
+
+    /**
+     * Return the level file of a board, writing the tiled level in a temporary file if needed.
+     * @param board the name of the board.
+     * @return the level file.
+     */
+    public static File file(String board) {
+        var separator = board.indexOf('@');
+        if(separator < 0) return new File(LEVELS_FOLDER, board);
+
+        var name = board.substring(0, separator);
+        var times = Integer.parseInt(board.substring(separator + 1));
+        try {
+            if(name.equals(GENERATED)) return generate(times);
+            return tile(new File(LEVELS_FOLDER, name), times);
+        } catch (IOException err) {
+            throw new UncheckedIOException(err);
+        }
+    }
+
+    /**
+     * Load a board and recognize its rules.
+     * @param board the name of the board.
+     * @return the level, ready to be updated.
+     */
+    public static Level load(String board) {
+        var level = new Level(file(board), startingRules());
+        level.advance(Direction.NONE);
+        return level;
+    }
+
+    /**
+     * Write a generated level with the default settings of the generator.
+     * @param size the width and the height of the level.
+     * @return the temporary file of the generated level.
+     */
+    private static File generate(int size) throws IOException {
+        var file = Files.createTempFile("baba-bench-", ".csv");
+        file.toFile().deleteOnExit();
+        var generator = new LevelGenerator(size, size, GENERATOR_SEED);
+        generator.setRuleCount(size / 4);
+        generator.setPushChainCount(size / 16);
+        generator.write(file);
+        return file.toFile();
+    }
+
+    /**
+     * Write a level tiled several times in each direction.
+     * @param source the level to tile.
+     * @param times the number of copies in each direction.
+     * @return the temporary file of the tiled level.
+     */
+    private static File tile(File source, int times) throws IOException {
+        var board = LevelCompiler.readSource(source);
+        var columns = board.size().x();
+        var rows = board.size().y();
+        var grid = new String[rows][columns];
+        for (int packed : board.blocks()) {
+            var block = BoardState.unpack(packed);
+            var position = block.getPosition();
+            // Only the last block of a cell is kept, a CSV cell holds a single block.
+            grid[position.y()][position.x()] = block.getID().toString();
+        }
+
+        var lines = new ArrayList<String>();
+        lines.add(columns * times + "," + rows * times);
+        for (int j = 0; j < rows * times; j++) {
+            var line = new StringBuilder();
+            for (int i = 0; i < columns * times; i++) {
+                if(i > 0) line.append(',');
+                var token = grid[j % rows][i % columns];
+                if(token != null) line.append(token);
+            }
+            lines.add(line.toString());
+        }
+
+        var file = Files.createTempFile("baba-bench-", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, lines);
+        return file.toFile();
+    }
+}
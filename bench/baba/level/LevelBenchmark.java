@@ -0,0 +1,92 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.utils.Direction;
+import baba.utils.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the level engine: updates, queries and rule recognition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelBenchmark {
+    private static final Direction[] MOVES = { Direction.UP, Direction.RIGHT, Direction.DOWN, Direction.LEFT };
+
+    @Param({
+            "default-level.csv", "level-1.csv", "level-2.csv", "level-3.csv", "level-4.csv",
+            "level-5.csv", "level-6.csv", "level-bonus.csv", "level-1.csv@8", "level-bonus.csv@8",
+            "generated@128", "generated@512"
+    })
+    public String board;
+
+    private Level level;
+    private BoardState initial;
+    private Vector2[] cells;
+    private int step;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void load() {
+        level = BenchmarkBoards.load(board);
+        initial = level.getState();
+
+        var size = level.getSize();
+        cells = new Vector2[size.x() * size.y()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Vector2(i % size.x(), i / size.x());
+        }
+    }
+
+    // Every iteration starts from the initial board, so that the player does not end stuck or winning.
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void restore() {
+        level.restore(initial);
+        step = 0;
+    }
+
+    @Benchmark
+    public boolean update() {
+        return level.update(MOVES[step++ & 3]);
+    }
+
+    @Benchmark
+    public List<Block> findByPosition() {
+        step = step + 1 == cells.length ? 0 : step + 1;
+        return level.findByPosition(cells[step]);
+    }
+
+    @Benchmark
+    public void getElements(Blackhole blackhole) {
+        for (var block : level.getElements()) {
+            blackhole.consume(block);
+        }
+    }
+
+    @Benchmark
+    public void recognizeRules() {
+        level.recognizeRules();
+    }
+
+    @Benchmark
+    public BoardState getState() {
+        return level.getState();
+    }
+}
@@ -0,0 +1,77 @@
+package baba.rules;
+
+import baba.block.Text;
+import baba.level.BenchmarkBoards;
+import baba.level.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rule parser: AND expansion and evaluation of a rule list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String[] NOUNS = { "BABA", "FLAG", "ROCK", "WALL", "WATER", "SKULL", "LAVA", "GRASS" };
+    private static final String[] PROPERTIES = { "PUSH", "STOP", "WIN", "HOT", "MELT", "SINK", "DEFEAT", "YOU" };
+
+    // Number of operands on each side of IS.
+    @Param({ "1", "2", "4", "8" })
+    public int andChain;
+
+    private List<Text> andRule;
+    private List<Rule> rules;
+    private Parser parser;
+
+    @Setup
+    public void prepare() {
+        var words = new ArrayList<String>();
+        for (int i = 0; i < andChain; i++) {
+            if(i > 0) words.add("AND");
+            words.add(NOUNS[i % NOUNS.length]);
+        }
+        words.add("IS");
+        for (int i = 0; i < andChain; i++) {
+            if(i > 0) words.add("AND");
+            words.add(PROPERTIES[i % PROPERTIES.length]);
+        }
+        andRule = new Rule(words).getTextElements();
+
+        rules = new ArrayList<>(BenchmarkBoards.startingRules());
+        rules.add(new Rule(words));
+        rules.add(new Rule("BABA", "IS", "YOU"));
+        rules.add(new Rule("FLAG", "IS", "WIN"));
+        rules.add(new Rule("ROCK", "IS", "PUSH"));
+        rules.add(new Rule("WALL", "IS", "STOP"));
+
+        Level level = BenchmarkBoards.load("level-1.csv");
+        parser = new Parser(level);
+    }
+
+    @Benchmark
+    public List<ArrayList<Text>> splitAndRule() {
+        return Parser.splitAndRule(andRule);
+    }
+
+    @Benchmark
+    public void parse() {
+        parser.parse(rules);
+    }
+}
@@ -0,0 +1,68 @@
+package baba.utils;
+
+import baba.level.BenchmarkBoards;
+import baba.level.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the save file: saving a level and loading it back, in a temporary save file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveLoaderBenchmark {
+    @Param({ "level-1.csv", "level-bonus.csv", "level-1.csv@8", "level-bonus.csv@8" })
+    public String board;
+
+    private Level level;
+    private Path path;
+    private SaveLoader saveLoader;
+
+    @Setup
+    public void prepare() throws IOException {
+        level = BenchmarkBoards.load(board);
+        path = Files.createTempFile("baba-bench-", ".sav");
+        saveLoader = new SaveLoader(path);
+        saveLoader.save(level, board, 0);
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        saveLoader.save(level, board, 1);
+    }
+
+    @Benchmark
+    public SaveLoader.Save load() throws IOException {
+        return saveLoader.load(0);
+    }
+
+    @Benchmark
+    public SaveLoader.Save roundTrip() throws IOException {
+        saveLoader.save(level, board, 1);
+        return saveLoader.load(1);
+    }
+}
@@ -2,12 +2,8 @@ package baba.block;
 
 import baba.block.identifiers.Property;
 import baba.block.identifiers.RealObject;
-import baba.utils.SaveLoader;
 import baba.utils.Vector2;
 
-import javax.swing.*;
-import java.awt.*;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -15,14 +11,13 @@ import java.util.Objects;
  */
 public class Block {
     private BlockID identifier;
-    private Image image;
     private Vector2 position;
     private boolean dead = false;
-    private final HashSet<Property> properties = new HashSet<>();
+    private PropertyTable properties;
+    private BlockListener listener;
 
     public Block(BlockID identifier) {
         this.identifier = identifier;
-        this.image = new ImageIcon("res/sprites/" + identifier + ".gif").getImage();
     }
 
     /**
@@ -38,7 +33,9 @@ public class Block {
      * @param position the position to
      */
     public void setPosition(Vector2 position) {
+        var previous = this.position;
         this.position = new Vector2(position.x(), position.y());
+        if(listener != null && previous != null) listener.onMove(this, previous);
     }
 
     /**
@@ -46,7 +43,9 @@ public class Block {
      * @param state the state of the block.
      */
     public void setDead(boolean state) {
+        var wasDead = dead;
         dead = state;
+        if(listener != null && wasDead != state) listener.onUpdate(this, identifier, wasDead);
     }
 
     /**
@@ -66,18 +65,19 @@ public class Block {
     }
 
     /**
-     * Return the image of this block.
-     * @return the image of this block.
+     * Return the priority in the layering. Used when rendering blocks.
+     * @return the priority of the block.
      */
-    public Image getImage() {
-        return image;
+    public int getPriority() {
+        return getPriority(identifier);
     }
 
     /**
-     * Return the priority in the layering. Used when rendering blocks.
+     * Return the priority in the layering of a block with the given identifier.
+     * @param identifier the identifier of the block.
      * @return the priority of the block.
      */
-    public int getPriority() {
+    public static int getPriority(BlockID identifier) {
         if(identifier instanceof RealObject) return -((RealObject) identifier).ordinal();
         return 1;
     }
@@ -108,25 +108,35 @@ public class Block {
      * @param block the block attributes to copy from.
      */
     public void copy(Block block) {
+        var previousID = identifier;
+        var wasDead = dead;
         this.identifier = block.identifier;
-        this.image = block.image;
         this.dead = block.dead;
+        if(listener != null) listener.onUpdate(this, previousID, wasDead);
     }
 
-    public String toTextFormat() {
-        return identifier.toString() + SaveLoader.SEPARATOR + position.x() +
-                SaveLoader.SEPARATOR + position.y() + SaveLoader.SEPARATOR + dead;
+    /**
+     * Set the listener notified when this block moves or changes.
+     * @param listener the listener, or null to stop notifying.
+     */
+    public void setListener(BlockListener listener) {
+        this.listener = listener;
     }
 
-    public void addProperty(Property property) {
-        properties.add(property);
+    /**
+     * Set the table holding the properties of this block identifier.
+     * @param properties the property table of the level containing this block.
+     */
+    public void setPropertyTable(PropertyTable properties) {
+        this.properties = properties;
     }
 
+    /**
+     * Return true if this block has the specified property, based on its identifier.
+     * @param property the property to check.
+     * @return true if this block has the property.
+     */
     public boolean hasProperty(Property property) {
-        return properties.contains(property);
-    }
-
-    public void clearProperties() {
-        properties.clear();
+        return properties != null && properties.has(identifier, property);
     }
 }
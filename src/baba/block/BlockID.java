@@ -3,15 +3,49 @@ package baba.block;
 import baba.block.identifiers.*;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Identifier of a block.
  */
 public interface BlockID {
 
-    // Allow conversion between String and BlockID.
-    HashMap<String, BlockID> stringToID = new HashMap<>();
+    /**
+     * Return the ordinal of this identifier in its enumeration.
+     * @return the ordinal of this identifier.
+     */
+    int ordinal();
+
+    /**
+     * Return a dense index of the specified identifier, unique among all the identifiers.
+     * Allow tables to be indexed by identifier.
+     * @param id the identifier.
+     * @return the index of the identifier, between 0 and {@link #count()} excluded.
+     */
+    static int indexOf(BlockID id) {
+        return Ordinals.offsetOf(id) + id.ordinal();
+    }
+
+    /**
+     * Return the identifier with the specified dense index.
+     * @param index the index of the identifier.
+     * @return the identifier with the given index.
+     * @see #indexOf(BlockID)
+     */
+    static BlockID fromIndex(int index) {
+        return Ordinals.values[index];
+    }
+
+    /**
+     * Return the number of identifiers.
+     * @return the number of identifiers.
+     */
+    static int count() {
+        return Ordinals.values.length;
+    }
 
     /**
      * Return the block identifier of a specified String.
@@ -21,17 +55,34 @@ public interface BlockID {
     static BlockID valueOf(String token) {
         if (token == null) return null;
 
-        return stringToID.get(token);
+        return Ordinals.stringToID.get(token);
     }
 
     /**
-     * Initialize a map of string to identifier.
+     * Dense numbering of the identifiers, each enumeration being stored after the previous one.
      */
-    static void init() {
-        Arrays.asList(Noun.values()).forEach(instance -> stringToID.put(instance.toString(), instance));
-        Arrays.asList(Operator.values()).forEach(instance -> stringToID.put(instance.toString(), instance));
-        Arrays.asList(Property.values()).forEach(instance -> stringToID.put(instance.toString(), instance));
-        Arrays.asList(RealObject.values()).forEach(instance -> stringToID.put(instance.toString(), instance));
-        Arrays.asList(Group.values()).forEach(instance -> stringToID.put(instance.toString(), instance));
+    final class Ordinals {
+        private static final BlockID[] values = Stream.of(
+                RealObject.values(), Noun.values(), Operator.values(), Property.values(), Group.values()
+        ).flatMap(Arrays::stream).toArray(BlockID[]::new);
+        private static final int nounOffset = RealObject.values().length;
+        private static final int operatorOffset = nounOffset + Noun.values().length;
+        private static final int propertyOffset = operatorOffset + Operator.values().length;
+        private static final int groupOffset = propertyOffset + Property.values().length;
+
+        // Allow conversion between String and BlockID.
+        private static final Map<String, BlockID> stringToID = Arrays.stream(values)
+                .collect(Collectors.toUnmodifiableMap(BlockID::toString, Function.identity()));
+
+        private Ordinals() {}
+
+        private static int offsetOf(BlockID id) {
+            if(id instanceof RealObject) return 0;
+            if(id instanceof Noun) return nounOffset;
+            if(id instanceof Operator) return operatorOffset;
+            if(id instanceof Property) return propertyOffset;
+            if(id instanceof Group) return groupOffset;
+            throw new IllegalArgumentException("unknown identifier " + id);
+        }
     }
 }
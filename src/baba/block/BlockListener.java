@@ -0,0 +1,23 @@
+package baba.block;
+
+import baba.utils.Vector2;
+
+/**
+ * Listener notified when a block moves or changes state. Used by the level to keep its indexes up to date.
+ */
+public interface BlockListener {
+    /**
+     * Called after a block has moved.
+     * @param block the block which moved.
+     * @param previous the position of the block before moving.
+     */
+    void onMove(Block block, Vector2 previous);
+
+    /**
+     * Called after a block identifier or state has changed.
+     * @param block the block which changed.
+     * @param previousID the identifier of the block before the change.
+     * @param wasDead the state of the block before the change.
+     */
+    void onUpdate(Block block, BlockID previousID, boolean wasDead);
+}
@@ -2,8 +2,9 @@ package baba.block;
 
 import baba.block.identifiers.Noun;
 import baba.block.identifiers.Property;
-import baba.level.LevelManager;
-import baba.utils.InputComponent;
+import baba.level.Level;
+
+import java.util.List;
 
 /**
  * An effect is applied to a block modifying the block itself or the game state.
@@ -11,14 +12,24 @@ import baba.utils.InputComponent;
 public interface Effect {
     /**
      * Apply the property effect on the specified block.
+     * @param level the level containing the block.
+     * @param block the block on which the effect is applied.
+     */
+    void apply(Level level, Block block);
+
+    /**
+     * Apply the property effect on every block having the property, one block after another.
+     * @param level the level containing the blocks.
+     * @param blocks the blocks on which the effect is applied.
      */
-    void apply(Block block);
+    default void applyAll(Level level, List<Block> blocks) {
+        blocks.forEach(block -> apply(level, block));
+    }
 
     class Defeat implements Effect {
         @Override
-        public void apply(Block block) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-            var blockAt = currentLevel.findByPosition(block.getPosition());
+        public void apply(Level level, Block block) {
+            var blockAt = level.findByPosition(block.getPosition());
 
             blockAt.stream().filter(blk -> blk.hasProperty(Property.YOU))
                     .forEach(blk -> blk.setDead(true));
@@ -27,9 +38,8 @@ public interface Effect {
 
     class Hot implements Effect {
         @Override
-        public void apply(Block block) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-            var blockAt = currentLevel.findByPosition(block.getPosition());
+        public void apply(Level level, Block block) {
+            var blockAt = level.findByPosition(block.getPosition());
             for (Block blk:blockAt) {
                 if(blk.hasProperty(Property.MELT)) {
                     blk.setDead(true);
@@ -40,10 +50,8 @@ public interface Effect {
 
     class Sink implements Effect {
         @Override
-        public void apply(Block block) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-
-            var blockAt = currentLevel.findByPosition(block.getPosition());
+        public void apply(Level level, Block block) {
+            var blockAt = level.findByPosition(block.getPosition());
             if(blockAt.stream().anyMatch(blk -> !blk.equals(block))) {
                 blockAt.forEach(blk -> blk.setDead(true));
                 block.setDead(true);
@@ -53,28 +61,33 @@ public interface Effect {
 
     class Win implements Effect {
         @Override
-        public void apply(Block block) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-            var blockAt = currentLevel.findByPosition(block.getPosition());
+        public void apply(Level level, Block block) {
+            var blockAt = level.findByPosition(block.getPosition());
 
             if(blockAt.stream().anyMatch(blk -> blk.hasProperty(Property.YOU))) {
-                currentLevel.setFinished(true);
-                System.out.println("Congratulation !");
+                level.setWon(true);
             }
         }
     }
 
     class You implements Effect {
-        public void apply(Block block) {
-            var direction = InputComponent.getMoveDirection();
+        public void apply(Level level, Block block) {
+            level.move(block, level.getMoveDirection());
+        }
 
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-            currentLevel.move(block, direction);
+        /**
+         * Move every YOU block at once, so that the result does not depend on the order of the blocks.
+         * @param level the level containing the blocks.
+         * @param blocks the blocks on which the effect is applied.
+         */
+        @Override
+        public void applyAll(Level level, List<Block> blocks) {
+            level.moveAll(blocks, level.getMoveDirection());
         }
     }
 
     class Real implements Effect {
-        public void apply(Block block) {
+        public void apply(Level level, Block block) {
             if(block.getID() instanceof Noun noun) {
                 var linkedObj = noun.getLinkedObject();
                 block.copy(new Block(linkedObj));
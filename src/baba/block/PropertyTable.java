@@ -0,0 +1,68 @@
+package baba.block;
+
+import baba.block.identifiers.Property;
+
+import java.util.Arrays;
+
+/**
+ * Properties of each block identifier. Rules always apply to every block of a type,
+ * so the properties are stored once per identifier as a bitmask instead of once per block.
+ */
+public class PropertyTable {
+    private final long[] masks = new long[BlockID.count()];
+
+    /**
+     * Add a property to all the blocks with the specified identifier.
+     * @param id the identifier of the blocks.
+     * @param property the property to add.
+     */
+    public void add(BlockID id, Property property) {
+        masks[BlockID.indexOf(id)] |= 1L << property.ordinal();
+    }
+
+    /**
+     * Return true if the blocks with the specified identifier have the given property.
+     * @param id the identifier of the blocks.
+     * @param property the property to check.
+     * @return true if the identifier has the given property.
+     */
+    public boolean has(BlockID id, Property property) {
+        return (masks[BlockID.indexOf(id)] & (1L << property.ordinal())) != 0;
+    }
+
+    /**
+     * Return the properties of an identifier.
+     * @param id the identifier.
+     * @return the properties of the identifier, as a bitmask of property ordinals.
+     */
+    public long getMask(BlockID id) {
+        return masks[BlockID.indexOf(id)];
+    }
+
+    /**
+     * Return the properties of every identifier.
+     * @return a copy of the bitmasks, indexed by identifier index.
+     * @see BlockID#indexOf(BlockID)
+     */
+    public long[] getMasks() {
+        return masks.clone();
+    }
+
+    /**
+     * Remove every property of every identifier.
+     */
+    public void clear() {
+        Arrays.fill(masks, 0L);
+    }
+
+    /**
+     * Return true if no identifier has a property.
+     * @return true if the table is empty.
+     */
+    public boolean isEmpty() {
+        for (long mask : masks) {
+            if(mask != 0) return false;
+        }
+        return true;
+    }
+}
@@ -23,10 +23,11 @@ public enum Group implements BlockID, Text {
 
     public HashSet<Text> getElements() {
         var elements = new HashSet<Text>();
-        stringToID.forEach((s, id) -> {
+        for (int i = 0; i < BlockID.count(); i++) {
+            var id = BlockID.fromIndex(i);
             if (condition.test(id) && !(id instanceof Group))
                 elements.add((Text) id);
-        });
+        }
         return elements;
     }
 }
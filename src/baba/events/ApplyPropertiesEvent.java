@@ -0,0 +1,14 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Application of the effects of the properties on the blocks of a level.
+ */
+@Name("baba.ApplyProperties")
+@Label("Apply Properties")
+@Description("Application of the property effects, changed if a block moved, died or changed identity")
+public class ApplyPropertiesEvent extends LevelEvent {
+}
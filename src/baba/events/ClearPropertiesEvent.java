@@ -0,0 +1,14 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Removal of the properties given by the rules, before the rules are applied again.
+ */
+@Name("baba.ClearProperties")
+@Label("Clear Properties")
+@Description("Removal of the properties given by the rules, changed if an identifier had a property")
+public class ClearPropertiesEvent extends LevelEvent {
+}
@@ -0,0 +1,16 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Processing of a key by the input component, including the undo, redo, save and load it may trigger.
+ */
+@Name("baba.Input")
+@Label("Input")
+@Description("Processing of a key, changed if the key moves the player")
+public class InputEvent extends LevelEvent {
+    @Label("Key")
+    public String key;
+}
@@ -0,0 +1,48 @@
+package baba.events;
+
+import baba.level.Level;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a phase of the game loop, describing the level the phase worked on.
+ * The fields are only filled when the event is committed, so that a disabled event costs almost nothing:
+ * <pre>
+ * var event = new UpdateEvent();
+ * event.begin();
+ * ...
+ * if(event.shouldCommit()) {
+ *     event.describe(level, changed);
+ *     event.commit();
+ * }
+ * </pre>
+ */
+@Category({"Baba", "Game Loop"})
+@StackTrace(false)
+public abstract class LevelEvent extends Event {
+    @Label("Block Count")
+    @Description("Number of living blocks of the level at the end of the phase")
+    int blockCount;
+
+    @Label("Rule Count")
+    @Description("Number of rules applied on the level, starting rules included")
+    int ruleCount;
+
+    @Label("Changed")
+    @Description("True if the phase changed what it works on, see the description of the event")
+    boolean changed;
+
+    /**
+     * Fill the fields describing the level.
+     * @param level the level the phase worked on.
+     * @param changed true if the phase changed something.
+     */
+    public void describe(Level level, boolean changed) {
+        this.blockCount = level.getElements().size();
+        this.ruleCount = level.getRuleCount();
+        this.changed = changed;
+    }
+}
@@ -0,0 +1,17 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evaluation of a list of rules by the parser.
+ */
+@Name("baba.Parse")
+@Label("Parse")
+@Description("Evaluation of the rules, changed if a rule was not found in the cache of compiled rules")
+public class ParseEvent extends LevelEvent {
+    @Label("Compiled Rule Count")
+    @Description("Number of distinct rules without AND operator evaluated")
+    public int compiledRuleCount;
+}
@@ -0,0 +1,26 @@
+package baba.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of the move of a block pushing other blocks. The blocks are moved later, with the other moves
+ * of the tick.
+ */
+@Name("baba.PushChain")
+@Label("Push Chain")
+@Description("Resolution of the move of a block which pushes at least one other block")
+@Category({"Baba", "Game Loop", "Details"})
+@StackTrace(false)
+public class PushChainEvent extends Event {
+    @Label("Direction")
+    public String direction;
+
+    @Label("Length")
+    @Description("Number of blocks moved, the pushing block included")
+    public int length;
+}
@@ -0,0 +1,30 @@
+package baba.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Drawing of a frame by the render thread.
+ */
+@Name("baba.Render")
+@Label("Render")
+@Description("Drawing of a snapshot of the level by the render thread")
+@Category({"Baba", "Game Loop"})
+@StackTrace(false)
+public class RenderEvent extends Event {
+    @Label("Block Count")
+    @Description("Number of living blocks of the snapshot")
+    public int blockCount;
+
+    @Label("Drawn Cells")
+    @Description("Number of cells drawn again, every cell for a full frame")
+    public int drawnCells;
+
+    @Label("Full")
+    @Description("True if the whole frame was drawn again")
+    public boolean full;
+}
@@ -0,0 +1,27 @@
+package baba.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evaluation of a single rule for an operator. Rules are evaluated at every update, so only the slow
+ * evaluations are recorded unless the threshold is lowered in the recording settings.
+ */
+@Name("baba.RuleEvaluation")
+@Label("Rule Evaluation")
+@Description("Evaluation of a rule without AND operator for one of its operators")
+@Category({"Baba", "Game Loop", "Details"})
+@StackTrace(false)
+@Threshold("50 us")
+public class RuleEvaluationEvent extends Event {
+    @Label("Rule")
+    public String rule;
+
+    @Label("Operator")
+    public String operator;
+}
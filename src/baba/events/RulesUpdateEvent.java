@@ -0,0 +1,14 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recognition of the rules written on the board and their evaluation.
+ */
+@Name("baba.RulesUpdate")
+@Label("Rules Update")
+@Description("Recognition and evaluation of the rules, changed if the board was read again")
+public class RulesUpdateEvent extends LevelEvent {
+}
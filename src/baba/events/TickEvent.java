@@ -0,0 +1,17 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A tick of the game loop: the processing of an input, the updates of the level and the publication of the frame.
+ * The wait for the input is not part of the tick.
+ */
+@Name("baba.Tick")
+@Label("Tick")
+@Description("Processing of an input by the game loop, changed if the level changed")
+public class TickEvent extends LevelEvent {
+    @Label("Direction")
+    public String direction;
+}
@@ -0,0 +1,17 @@
+package baba.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An update of a level, a tick being made of one update in the direction of the move and of the updates
+ * needed for the board to settle.
+ */
+@Name("baba.Update")
+@Label("Level Update")
+@Description("Update of the level, changed if a block moved, died or changed identity")
+public class UpdateEvent extends LevelEvent {
+    @Label("Direction")
+    public String direction;
+}
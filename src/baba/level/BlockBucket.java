@@ -0,0 +1,70 @@
+package baba.level;
+
+import baba.block.Block;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unordered set of blocks compared by identity, with constant time insertion and removal.
+ * A removed block is replaced by the last block of the bucket, so the order of the blocks only depends on
+ * the sequence of insertions and removals.
+ */
+class BlockBucket {
+    private final ArrayList<Block> blocks = new ArrayList<>();
+    private final List<Block> view = Collections.unmodifiableList(blocks);
+    // Blocks are compared by identity, Block.equals only compares identifiers.
+    private final Map<Block, Integer> slots = new IdentityHashMap<>();
+
+    /**
+     * Add a block at the end of this bucket.
+     * @param block the block to add.
+     */
+    void add(Block block) {
+        if(slots.putIfAbsent(block, blocks.size()) == null) blocks.add(block);
+    }
+
+    /**
+     * Remove a block, moving the last block of this bucket in its place.
+     * @param block the block to remove.
+     * @return true if the block was in this bucket.
+     */
+    boolean remove(Block block) {
+        var slot = slots.remove(block);
+        if(slot == null) return false;
+
+        var last = blocks.remove(blocks.size() - 1);
+        if(last != block) {
+            blocks.set(slot, last);
+            slots.put(last, slot);
+        }
+        return true;
+    }
+
+    /**
+     * Remove every block.
+     */
+    void clear() {
+        blocks.clear();
+        slots.clear();
+    }
+
+    /**
+     * Return the number of blocks of this bucket.
+     * @return the number of blocks.
+     */
+    int size() {
+        return blocks.size();
+    }
+
+    /**
+     * Return the blocks of this bucket.
+     * @return an unmodifiable view of the blocks.
+     */
+    List<Block> view() {
+        return view;
+    }
+}
@@ -0,0 +1,240 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.block.BlockID;
+import baba.utils.Vector2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable and compact representation of the blocks of a level. Each block is packed in an int holding
+ * its identifier index, its state and its position; the packed blocks are sorted so that two levels with
+ * the same blocks have equal states.
+ */
+public final class BoardState {
+    private static final int COORDINATE_BITS = 12;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+    private static final int DEAD_BIT = 1 << (2 * COORDINATE_BITS);
+    private static final int ID_SHIFT = 2 * COORDINATE_BITS + 1;
+
+    /**
+     * The maximum number of columns or lines of a board which can be represented.
+     */
+    public static final int MAX_SIZE = 1 << COORDINATE_BITS;
+
+    private final Vector2 size;
+    private final int[] blocks;
+    private final int hashCode;
+
+    private BoardState(Vector2 size, int[] blocks) {
+        this.size = size;
+        this.blocks = blocks;
+        this.hashCode = 31 * size.hashCode() + Arrays.hashCode(blocks);
+    }
+
+    /**
+     * Create the state of a board from packed blocks.
+     * @param size the size of the board.
+     * @param blocks the packed blocks, in any order.
+     * @return the state of the board.
+     * @see #pack(BlockID, int, int, boolean)
+     */
+    public static BoardState of(Vector2 size, int[] blocks) {
+        checkSize(size);
+        var sorted = blocks.clone();
+        Arrays.sort(sorted);
+        return new BoardState(size, sorted);
+    }
+
+    /**
+     * Create the state of a board from its blocks, dead or alive.
+     * @param size the size of the board.
+     * @param blocks the blocks of the board.
+     * @return the state of the board.
+     */
+    public static BoardState of(Vector2 size, List<Block> blocks) {
+        checkSize(size);
+        var packed = new int[blocks.size()];
+        for (int i = 0; i < packed.length; i++) {
+            var block = blocks.get(i);
+            packed[i] = pack(block.getID(), block.getPosition().x(), block.getPosition().y(), block.isDead());
+        }
+        Arrays.sort(packed);
+        return new BoardState(size, packed);
+    }
+
+    private static void checkSize(Vector2 size) {
+        if(size.x() > MAX_SIZE || size.y() > MAX_SIZE)
+            throw new IllegalArgumentException("board too large " + size);
+    }
+
+    /**
+     * Pack a block in an int.
+     * @param id the identifier of the block.
+     * @param x the column of the block.
+     * @param y the line of the block.
+     * @param dead the state of the block.
+     * @return the packed block.
+     */
+    public static int pack(BlockID id, int x, int y, boolean dead) {
+        return BlockID.indexOf(id) << ID_SHIFT | (dead ? DEAD_BIT : 0) | x << COORDINATE_BITS | y;
+    }
+
+    /**
+     * Return true if a packed block has a known identifier and lies in a board of the given size.
+     * @param packed the packed block.
+     * @param size the size of the board.
+     * @return true if the block can be unpacked in the board.
+     */
+    public static boolean isValid(int packed, Vector2 size) {
+        var x = (packed >>> COORDINATE_BITS) & COORDINATE_MASK;
+        var y = packed & COORDINATE_MASK;
+        return packed >>> ID_SHIFT < BlockID.count() && x < size.x() && y < size.y();
+    }
+
+    /**
+     * Create a new block from a packed block.
+     * @param packed the packed block.
+     * @return the block.
+     * @see #pack(BlockID, int, int, boolean)
+     */
+    public static Block unpack(int packed) {
+        var block = new Block(BlockID.fromIndex(packed >>> ID_SHIFT));
+        block.setPosition(new Vector2((packed >>> COORDINATE_BITS) & COORDINATE_MASK, packed & COORDINATE_MASK));
+        block.setDead((packed & DEAD_BIT) != 0);
+        return block;
+    }
+
+    /**
+     * Return the size of the board.
+     * @return the size of the board.
+     */
+    public Vector2 getSize() {
+        return size;
+    }
+
+    /**
+     * Return the number of blocks of the board.
+     * @return the number of blocks.
+     */
+    public int count() {
+        return blocks.length;
+    }
+
+    /**
+     * Return the packed block at the given index.
+     * @param index the index of the block.
+     * @return the packed block.
+     */
+    public int packed(int index) {
+        return blocks[index];
+    }
+
+    /**
+     * Return the identifier of the block at the given index.
+     * @param index the index of the block.
+     * @return the identifier of the block.
+     */
+    public BlockID id(int index) {
+        return BlockID.fromIndex(blocks[index] >>> ID_SHIFT);
+    }
+
+    /**
+     * Return the column of the block at the given index.
+     * @param index the index of the block.
+     * @return the column of the block.
+     */
+    public int x(int index) {
+        return (blocks[index] >>> COORDINATE_BITS) & COORDINATE_MASK;
+    }
+
+    /**
+     * Return the line of the block at the given index.
+     * @param index the index of the block.
+     * @return the line of the block.
+     */
+    public int y(int index) {
+        return blocks[index] & COORDINATE_MASK;
+    }
+
+    /**
+     * Return true if the block at the given index is dead.
+     * @param index the index of the block.
+     * @return true if the block is dead.
+     */
+    public boolean isDead(int index) {
+        return (blocks[index] & DEAD_BIT) != 0;
+    }
+
+    /**
+     * Create new blocks corresponding to this state.
+     * @return the list of blocks, dead or alive.
+     */
+    public List<Block> toBlocks() {
+        var list = new ArrayList<Block>(blocks.length);
+        for (int block : blocks) {
+            list.add(unpack(block));
+        }
+        return list;
+    }
+
+    /**
+     * Return a 64 bits hash of this state. Different seeds give independent hashes,
+     * allowing wider fingerprints to be built.
+     * @param seed the seed of the hash.
+     * @return the hash of this state.
+     */
+    public long hash64(long seed) {
+        var hash = seed ^ size.x() * 0x9E3779B97F4A7C15L ^ size.y();
+        for (int block : blocks) {
+            hash = mix(hash ^ block);
+        }
+        return mix(hash ^ blocks.length);
+    }
+
+    /**
+     * Return the Zobrist hash of this state, equal to the hash maintained by a level with the same blocks.
+     * @return the Zobrist hash of this state.
+     * @see Level#getHash()
+     */
+    public long zobristHash() {
+        long hash = 0;
+        var occurrence = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            // Identical blocks are next to each other in the sorted blocks.
+            occurrence = i > 0 && blocks[i] == blocks[i - 1] ? occurrence + 1 : 0;
+            hash ^= ZobristHash.key(id(i), x(i), y(i), isDead(i), occurrence);
+        }
+        return hash;
+    }
+
+    /**
+     * Mix the bits of a value (finalizer of SplitMix64).
+     * @param value the value to mix.
+     * @return the mixed value.
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BoardState state)) return false;
+        return hashCode == state.hashCode && size.equals(state.size) && Arrays.equals(blocks, state.blocks);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "BoardState" + size + " " + blocks.length + " blocks";
+    }
+}
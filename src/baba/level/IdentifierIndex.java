@@ -0,0 +1,54 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.block.BlockID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of the living blocks of a level by identifier. A lookup only costs the number of blocks
+ * with the requested identifier, adding or removing a block costs a constant time.
+ */
+class IdentifierIndex {
+    private final List<BlockBucket> buckets = new ArrayList<>();
+
+    IdentifierIndex() {
+        for(int i = 0; i < BlockID.count(); i++) {
+            buckets.add(new BlockBucket());
+        }
+    }
+
+    /**
+     * Add a block under its current identifier.
+     * @param block the block to add.
+     */
+    void add(Block block) {
+        buckets.get(BlockID.indexOf(block.getID())).add(block);
+    }
+
+    /**
+     * Remove a block which was stored under the given identifier.
+     * @param block the block to remove.
+     * @param id the identifier of the block when it was added.
+     */
+    void remove(Block block, BlockID id) {
+        buckets.get(BlockID.indexOf(id)).remove(block);
+    }
+
+    /**
+     * Remove every block.
+     */
+    void clear() {
+        buckets.forEach(BlockBucket::clear);
+    }
+
+    /**
+     * Return the blocks with the given identifier.
+     * @param id the identifier to match.
+     * @return an unmodifiable view of the blocks with the given identifier.
+     */
+    List<Block> get(BlockID id) {
+        return buckets.get(BlockID.indexOf(id)).view();
+    }
+}
@@ -0,0 +1,91 @@
+package baba.level;
+
+import baba.block.identifiers.Property;
+
+import java.util.List;
+
+/**
+ * Precomputed table of the interactions between the blocks sharing a cell. HOT, SINK, DEFEAT and WIN only act
+ * on the blocks of the cell of the block having them, so whether a cell needs to be resolved only depends on
+ * the properties found in the cell and on whether it holds more than one block.
+ */
+final class InteractionTable {
+    /**
+     * Properties resolved cell by cell, in the order of the enum Property. No other property with an effect
+     * comes between them, so resolving them together keeps the order in which the effects are applied.
+     */
+    static final List<Property> PROPERTIES = List.of(Property.HOT, Property.SINK, Property.DEFEAT, Property.WIN);
+
+    // Properties read by the interactions, each one is a bit of the key of the table.
+    private static final Property[] INPUTS = {
+            Property.YOU, Property.HOT, Property.MELT, Property.SINK, Property.DEFEAT, Property.WIN
+    };
+    private static final int CROWDED = 1 << INPUTS.length;
+    private static final long INPUT_MASK = inputMask();
+    private static final int[] TABLE = new int[CROWDED << 1];
+
+    static {
+        for (int key = 0; key < TABLE.length; key++) {
+            var interactions = 0;
+            if(has(key, Property.HOT) && has(key, Property.MELT)) interactions |= bit(Property.HOT);
+            if(has(key, Property.SINK) && (key & CROWDED) != 0) interactions |= bit(Property.SINK);
+            if(has(key, Property.DEFEAT) && has(key, Property.YOU)) interactions |= bit(Property.DEFEAT);
+            if(has(key, Property.WIN) && has(key, Property.YOU)) interactions |= bit(Property.WIN);
+            TABLE[key] = interactions;
+        }
+    }
+
+    private InteractionTable() {}
+
+    /**
+     * Return the interactions which can happen in a cell.
+     * @param properties the properties of the blocks of the cell, as a bitmask of property ordinals.
+     * @param crowded true if the cell holds more than one block.
+     * @return the set of interactions, as a bitmask of the indexes of PROPERTIES, 0 if nothing can happen.
+     * @see #fires(int, int)
+     */
+    static int interactions(long properties, boolean crowded) {
+        var key = crowded ? CROWDED : 0;
+        for (int i = 0; i < INPUTS.length; i++) {
+            if((properties & 1L << INPUTS[i].ordinal()) != 0) key |= 1 << i;
+        }
+        return TABLE[key];
+    }
+
+    /**
+     * Return true if an interaction belongs to a set of interactions.
+     * @param interactions the set of interactions.
+     * @param index the index of the interaction in PROPERTIES.
+     */
+    static boolean fires(int interactions, int index) {
+        return (interactions & 1 << index) != 0;
+    }
+
+    /**
+     * Return true if the interactions of an identifier differ between two sets of properties.
+     * @param previous the previous properties of the identifier, as a bitmask of property ordinals.
+     * @param current the current properties of the identifier.
+     */
+    static boolean differ(long previous, long current) {
+        return ((previous ^ current) & INPUT_MASK) != 0;
+    }
+
+    private static boolean has(int key, Property property) {
+        for (int i = 0; i < INPUTS.length; i++) {
+            if(INPUTS[i] == property) return (key & 1 << i) != 0;
+        }
+        return false;
+    }
+
+    private static int bit(Property property) {
+        return 1 << PROPERTIES.indexOf(property);
+    }
+
+    private static long inputMask() {
+        var mask = 0L;
+        for (var property : INPUTS) {
+            mask |= 1L << property.ordinal();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,164 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.block.BlockID;
+import baba.utils.Vector2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo history of a level. Each update records the changes of the blocks as deltas,
+ * so undoing a step only costs the number of changes of that step. The history is bounded both
+ * in number of steps and in number of recorded changes; the oldest steps are dropped first.
+ */
+class Journal {
+    /**
+     * A change of a block: a move, or a change of identifier or state.
+     */
+    private record Change(Block block, Vector2 from, Vector2 to,
+                          BlockID fromID, boolean wasDead, BlockID toID, boolean dead) {
+        private void undo() {
+            if(from != null) {
+                block.setPosition(from);
+            }
+            else {
+                block.copy(new Block(fromID));
+                block.setDead(wasDead);
+            }
+        }
+
+        private void redo() {
+            if(to != null) {
+                block.setPosition(to);
+            }
+            else {
+                block.copy(new Block(toID));
+                block.setDead(dead);
+            }
+        }
+    }
+
+    private final ArrayDeque<List<Change>> undoSteps = new ArrayDeque<>();
+    private final ArrayDeque<List<Change>> redoSteps = new ArrayDeque<>();
+    private List<Change> current = new ArrayList<>();
+    private int maxSteps;
+    private int maxChanges;
+    private int recordedChanges;
+    private boolean replaying;
+
+    Journal(int maxSteps, int maxChanges) {
+        setLimits(maxSteps, maxChanges);
+    }
+
+    /**
+     * Set the bounds of the history, dropping the oldest steps if needed.
+     * @param maxSteps the maximum number of steps which can be undone.
+     * @param maxChanges the maximum number of changes kept in the history.
+     */
+    void setLimits(int maxSteps, int maxChanges) {
+        if(maxSteps < 0 || maxChanges < 0) throw new IllegalArgumentException("negative limit");
+        this.maxSteps = maxSteps;
+        this.maxChanges = maxChanges;
+        trim();
+    }
+
+    /**
+     * Record the move of a block in the current step.
+     * @param block the block which moved.
+     * @param from the position before the move.
+     */
+    void recordMove(Block block, Vector2 from) {
+        if(replaying) return;
+        current.add(new Change(block, from, block.getPosition(), null, false, null, false));
+    }
+
+    /**
+     * Record a change of identifier or state of a block in the current step.
+     * @param block the block which changed.
+     * @param fromID the identifier before the change.
+     * @param wasDead the state before the change.
+     */
+    void recordUpdate(Block block, BlockID fromID, boolean wasDead) {
+        if(replaying || (fromID == block.getID() && wasDead == block.isDead())) return;
+        current.add(new Change(block, null, null, fromID, wasDead, block.getID(), block.isDead()));
+    }
+
+    /**
+     * End the current step. A step with changes can be undone and clears the redo history.
+     */
+    void commit() {
+        if(current.isEmpty()) return;
+
+        undoSteps.addLast(current);
+        recordedChanges += current.size();
+        current = new ArrayList<>();
+
+        redoSteps.forEach(step -> recordedChanges -= step.size());
+        redoSteps.clear();
+        trim();
+    }
+
+    /**
+     * Revert the last step.
+     * @return true if a step was reverted.
+     */
+    boolean undo() {
+        var step = undoSteps.pollLast();
+        if(step == null) return false;
+
+        replay(() -> {
+            for (int i = step.size() - 1; i >= 0; i--) {
+                step.get(i).undo();
+            }
+        });
+        redoSteps.addLast(step);
+        return true;
+    }
+
+    /**
+     * Apply again the last reverted step.
+     * @return true if a step was applied.
+     */
+    boolean redo() {
+        var step = redoSteps.pollLast();
+        if(step == null) return false;
+
+        replay(() -> step.forEach(Change::redo));
+        undoSteps.addLast(step);
+        return true;
+    }
+
+    /**
+     * Run changes which are not recorded in the history.
+     * @param changes the changes to run.
+     */
+    void replay(Runnable changes) {
+        replaying = true;
+        try {
+            changes.run();
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * Forget every step.
+     */
+    void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        current.clear();
+        recordedChanges = 0;
+    }
+
+    /**
+     * Drop the oldest steps until the history fits in its bounds.
+     */
+    private void trim() {
+        while(undoSteps.size() > maxSteps || (recordedChanges > maxChanges && !undoSteps.isEmpty())) {
+            recordedChanges -= undoSteps.pollFirst().size();
+        }
+    }
+}
@@ -2,32 +2,59 @@ package baba.level;
 
 import baba.block.Block;
 import baba.block.BlockID;
+import baba.block.BlockListener;
+import baba.block.PropertyTable;
 import baba.block.identifiers.Property;
 import baba.block.Text;
+import baba.events.ApplyPropertiesEvent;
+import baba.events.ClearPropertiesEvent;
+import baba.events.PushChainEvent;
+import baba.events.RulesUpdateEvent;
+import baba.events.UpdateEvent;
 import baba.rules.Parser;
 import baba.rules.Rule;
 import baba.utils.Direction;
-import baba.utils.DisplayComponent;
 import baba.utils.Vector2;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * A game level, containing rules and blocks.
  */
 public class Level {
+    private static final int DEFAULT_UNDO_STEPS = 1000;
+    private static final int DEFAULT_UNDO_CHANGES = 1_000_000;
+    private static final int DEFAULT_MAX_SETTLING_UPDATES = 100;
+
     private BlockMover mover;
+    private SpatialIndex index;
+    private final LiveElements live = new LiveElements();
+    private final IdentifierIndex byID = new IdentifierIndex();
+    private final PropertyTable properties = new PropertyTable();
+    private final ZobristHash hash = new ZobristHash();
+    private final Journal journal = new Journal(DEFAULT_UNDO_STEPS, DEFAULT_UNDO_CHANGES);
+    private final Tracker tracker = new Tracker();
     private final List<Block> elements = new ArrayList<>();
-    private final Rules rules = new Rules();
+    private final Rules rules;
+    private Direction moveDirection = Direction.NONE;
     private boolean finished = false;
+    private int maxSettlingUpdates = DEFAULT_MAX_SETTLING_UPDATES;
+    private boolean won = false;
+    private boolean modified = false;
+    private int[] initialBlocks = new int[0];
+    private BitSet dirtyCells = new BitSet();
+    private BitSet interactionCells = new BitSet();
 
-    public Level(File file) {
+    /**
+     * Create a level from a level file.
+     * @param file the level file to load.
+     * @param startingRules the rules applied in addition to the rules written on the board.
+     */
+    public Level(File file, List<Rule> startingRules) {
+        this.rules = new Rules(Objects.requireNonNull(startingRules));
         try {
             load(Objects.requireNonNull(file));
         } catch (IOException e) {
@@ -36,50 +63,37 @@ public class Level {
     }
 
     /**
-     * Load the specified file as a level tilemap. Initialize this level based on the file content.
+     * Load the specified file as a level tilemap. Initialize this level based on the file content,
+     * read from the compiled level file when it is up to date.
      * @param file the level file to load.
+     * @see LevelCompiler
      */
     private void load(File file) throws IOException {
-        try(var reader = new BufferedReader(new FileReader(file))) {
-            initSize(reader);
-            fillBoard(reader);
-        }
+        var board = LevelCompiler.load(file);
+        initSize(board.size());
+        initialBlocks = board.blocks();
+        fillBoard(initialBlocks);
     }
 
     /**
-     * Set this level size based on the information provided by the reader.
-     * @param reader the reader of a level file.
+     * Set this level size.
+     * @param size the number of columns and lines of the level.
      */
-    private void initSize(BufferedReader reader) throws IOException {
-        var line = reader.readLine().split(",");
-
-        // The first line contains the level dimensions.
-        var columns = Integer.parseInt(line[0]);
-        var rows = Integer.parseInt(line[1]);
-        this.mover = new BlockMover(new Vector2(columns, rows));
-        DisplayComponent.initOffsetCenter(new Vector2(columns, rows));
+    private void initSize(Vector2 size) {
+        this.mover = new BlockMover(size);
+        this.index = new SpatialIndex(size);
+        dirtyCells.set(0, size.x() * size.y());
+        interactionCells.set(0, size.x() * size.y());
     }
 
     /**
-     * Add blocks to the Board based on the reader content.
-     * @param reader the reader of a level file.
+     * Add blocks to the Board.
+     * @param blocks the packed blocks of the level file.
      * @see BlockMover
      */
-    private void fillBoard(BufferedReader reader) throws IOException {
-        for (int j = 0; reader.ready(); j++) {
-            var line = reader.readLine().split(",");
-
-            for(int i = 0; i < line.length; i++) {
-                var token = line[i];
-                if(token == null) continue;
-
-                var tag = BlockID.valueOf(token);
-                if(tag != null && !mover.notInBound(new Vector2(i, j))) {
-                    var block = new Block(tag);
-                    block.setPosition(new Vector2(i, j));
-                    mover.add(block);
-                }
-            }
+    private void fillBoard(int[] blocks) {
+        for (int packed : blocks) {
+            mover.add(BoardState.unpack(packed));
         }
     }
 
@@ -99,6 +113,39 @@ public class Level {
         this.finished = state;
     }
 
+    /**
+     * Return true if a block with the property YOU reached a block with the property WIN.
+     * @return true if this level is won.
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Set the level as won or not. A won level is finished.
+     * @param state true if the level is won.
+     */
+    public void setWon(boolean state) {
+        this.won = state;
+        if(state) finished = true;
+    }
+
+    /**
+     * Return true if no living block has the property YOU.
+     * @return true if the player has nothing left to control.
+     */
+    public boolean isDefeated() {
+        return getElements().stream().noneMatch(block -> block.hasProperty(Property.YOU));
+    }
+
+    /**
+     * Return the direction in which the blocks with the property YOU move during the current update.
+     * @return the direction of the current move.
+     */
+    public Direction getMoveDirection() {
+        return moveDirection;
+    }
+
     /**
      * Return the size of this level.
      * @return the size of this level.
@@ -108,86 +155,353 @@ public class Level {
     }
 
     /**
-     * Update the game state.
+     * Update the game state, moving the blocks with the property YOU in the specified direction.
+     * @param direction the direction of the move, NONE if the player did not move.
+     * @return true if a block moved, died or changed identity during this update.
      */
-    public void update() {
+    public boolean update(Direction direction) {
+        var event = new UpdateEvent();
+        event.begin();
+        moveDirection = Objects.requireNonNull(direction);
+        modified = false;
         applyProperties();
         if(mover.isChanged()) {
-            clearProperties();
-            rules.update();
-            mover.setChanged(false);
+            refreshRules();
+        }
+        moveDirection = Direction.NONE;
+        journal.commit();
+
+        if(event.shouldCommit()) {
+            event.direction = direction.name();
+            event.describe(this, modified);
+            event.commit();
+        }
+        return modified;
+    }
+
+    /**
+     * Update the game state in the specified direction, then without moving until nothing changes,
+     * so that the rules written by the move are applied before the next move.
+     * @param direction the direction of the move, NONE if the player did not move.
+     * @return true if a block moved, died or changed identity.
+     */
+    public boolean advance(Direction direction) {
+        var changed = update(direction);
+        var modified = changed;
+        for (int i = 0; modified && i < maxSettlingUpdates && !finished; i++) {
+            modified = update(Direction.NONE);
+            changed |= modified;
+        }
+        return changed;
+    }
+
+    /**
+     * Revert the changes of the last update which changed the board.
+     * @return true if a step was reverted.
+     */
+    public boolean undo() {
+        if(!journal.undo()) return false;
+
+        journal.replay(this::refreshRules);
+        refreshOutcome();
+        return true;
+    }
+
+    /**
+     * Apply again the last reverted update.
+     * @return true if a step was applied again.
+     */
+    public boolean redo() {
+        if(!journal.redo()) return false;
+
+        journal.replay(this::refreshRules);
+        refreshOutcome();
+        return true;
+    }
+
+    /**
+     * Set the level as won if a block with the property YOU is on a block with the property WIN, and as
+     * not finished otherwise. Used when the board is put back in a previous state.
+     */
+    private void refreshOutcome() {
+        finished = false;
+        won = false;
+        // Only the blocks with WIN are visited, so that undo does not cost a scan of the board.
+        for (int i = 0; i < BlockID.count(); i++) {
+            var id = BlockID.fromIndex(i);
+            if(!properties.has(id, Property.WIN)) continue;
+
+            for (var block : byID.get(id)) {
+                if(findByPosition(block.getPosition()).stream().anyMatch(other -> other.hasProperty(Property.YOU))) {
+                    setWon(true);
+                    return;
+                }
+            }
         }
     }
 
     /**
-     * Rule recognition class.
+     * Set the bounds of the undo history.
+     * @param maxSteps the maximum number of updates which can be undone.
+     * @param maxChanges the maximum number of block changes kept in the history.
+     */
+    public void setUndoLimits(int maxSteps, int maxChanges) {
+        journal.setLimits(maxSteps, maxChanges);
+    }
+
+    /**
+     * Recognize the rules written on the board and apply them.
+     */
+    private void refreshRules() {
+        var previous = properties.getMasks();
+        clearProperties();
+        rules.update();
+        mover.setChanged(false);
+
+        // The cells of the blocks whose interactions changed must be resolved again.
+        for (int i = 0; i < previous.length; i++) {
+            var id = BlockID.fromIndex(i);
+            if(!InteractionTable.differ(previous[i], properties.getMask(id))) continue;
+
+            for (var block : byID.get(id)) {
+                markInteraction(block.getPosition());
+            }
+        }
+    }
+
+    /**
+     * Mark a cell to be resolved again at the next update.
+     * @param position the position of the cell.
+     */
+    private void markInteraction(Vector2 position) {
+        interactionCells.set(position.y() * getSize().x() + position.x());
+    }
+
+    /**
+     * Set the number of updates without moving after which advance stops, even if the board still changes.
+     * Allow tests to play boards which do not settle.
+     * @param maxSettlingUpdates the maximum number of updates following the move of an advance.
+     */
+    void setMaxSettlingUpdates(int maxSettlingUpdates) {
+        this.maxSettlingUpdates = maxSettlingUpdates;
+    }
+
+    /**
+     * Recognize again every rule written on the board, as after the level is loaded, and apply them.
+     * Allow benchmarks to measure rule recognition on its own.
+     */
+    void recognizeRules() {
+        rules.markAllDirty();
+        refreshRules();
+    }
+
+    /**
+     * Return the number of rules applied on this level at the last update.
+     * @return the number of rules written on the board and of starting rules.
+     */
+    public int getRuleCount() {
+        return rules.rules.size();
+    }
+
+    /**
+     * Return the Zobrist hash of the board, over the identifier, position and state of every block.
+     * The hash is updated incrementally when a block moves, dies or changes identity. Identical blocks stacked
+     * in a cell do not cancel out.
+     * @return the hash of the board.
+     * @see BoardState#zobristHash()
+     */
+    public long getHash() {
+        return hash.value();
+    }
+
+    /**
+     * Return the current state of the board.
+     * @return the state of every block of this level, dead or alive.
+     */
+    public BoardState getState() {
+        return BoardState.of(getSize(), elements);
+    }
+
+    /**
+     * Return the cells where a living block appeared, moved, died or changed identity since the last call,
+     * and start collecting changes again. Every cell is returned after the level is loaded, reset or restored.
+     * @return the changed cells, the cell (x, y) being at index {@code y * width + x}.
+     */
+    public BitSet takeDirtyCells() {
+        var cells = dirtyCells;
+        dirtyCells = new BitSet(cells.size());
+        return cells;
+    }
+
+    /**
+     * Replace the blocks of this level with the blocks of the specified state and apply the rules
+     * written on the restored board.
+     * @param state the state to restore, with the size of this level.
+     */
+    public void restore(BoardState state) {
+        if(!state.getSize().equals(getSize()))
+            throw new IllegalArgumentException("state of a board of size " + state.getSize());
+
+        loadElements(state.toBlocks());
+        refreshRules();
+        refreshOutcome();
+    }
+
+    /**
+     * Put this level back in the state it was loaded in, without reading its file again.
+     * As for a new level, the rules are recognized at the next update.
+     */
+    public void reset() {
+        var blocks = new ArrayList<Block>(initialBlocks.length);
+        for (int packed : initialBlocks) {
+            blocks.add(BoardState.unpack(packed));
+        }
+        loadElements(blocks);
+        clearProperties();
+        finished = false;
+        won = false;
+    }
+
+    /**
+     * Rule recognition class. The rules found in each column and line of the board are kept between updates,
+     * only the columns and lines where a text block moved, appeared or disappeared are read again.
      */
     private class Rules {
-        private final List<Rule> defaultRules = LevelManager.getInstance().getStartingRule();
+        private final List<Rule> defaultRules;
+        private final Parser expressionParser = new Parser(Level.this);
         private final List<Rule> rules = new ArrayList<>();
+        private final List<Rule> recognized = new ArrayList<>();
+        private List<List<Rule>> columnRules;
+        private List<List<Rule>> lineRules;
+        private boolean[] dirtyColumns;
+        private boolean[] dirtyLines;
+        private boolean dirty = true;
         private static final int RULE_MIN_SIZE = 3;
 
+        private Rules(List<Rule> defaultRules) {
+            this.defaultRules = defaultRules;
+        }
+
         /**
          * Identify the rule on the board and apply them.
          */
         private void update() {
-            var expressionParser = new Parser();
-            Text[][] textBoard = new Text[getSize().x()][getSize().y()];
+            var event = new RulesUpdateEvent();
+            event.begin();
+            var read = dirty;
+            if(dirty) {
+                recognize();
+                rules.clear();
+                rules.addAll(recognized);
+                rules.addAll(defaultRules);
+            }
 
-            rules.clear();
+            expressionParser.parse(rules);
+            if(event.shouldCommit()) {
+                event.describe(Level.this, read);
+                event.commit();
+            }
+        }
 
-            fillWithTextBlocks(textBoard);
-            addRuleFromColumns(textBoard);
-            addRuleFromLines(textBoard);
+        /**
+         * Read again the dirty columns and lines and rebuild the list of recognized rules.
+         */
+        private void recognize() {
+            var size = getSize();
+            if(columnRules == null) {
+                columnRules = new ArrayList<>(Collections.nCopies(size.x(), List.of()));
+                lineRules = new ArrayList<>(Collections.nCopies(size.y(), List.of()));
+                dirtyColumns = new boolean[size.x()];
+                dirtyLines = new boolean[size.y()];
+                Arrays.fill(dirtyColumns, true);
+                Arrays.fill(dirtyLines, true);
+            }
 
-            defaultRules.forEach(r -> rules.add(r.clone()));
-            expressionParser.parse(rules);
+            for (int i = 0; i < size.x(); i++) {
+                if(dirtyColumns[i]) {
+                    columnRules.set(i, findRules(i, 0, 0, 1, size.y()));
+                    dirtyColumns[i] = false;
+                }
+            }
+            for (int j = 0; j < size.y(); j++) {
+                if(dirtyLines[j]) {
+                    lineRules.set(j, findRules(0, j, 1, 0, size.x()));
+                    dirtyLines[j] = false;
+                }
+            }
+
+            recognized.clear();
+            for (var columnRule : columnRules) recognized.addAll(columnRule);
+            for (var lineRule : lineRules) recognized.addAll(lineRule);
+            dirty = false;
+        }
+
+        /**
+         * Mark the column and the line of the specified position to be read again.
+         * @param position the position of a text block which changed.
+         */
+        private void markDirty(Vector2 position) {
+            dirty = true;
+            if(columnRules == null || mover.notInBound(position)) return;
+
+            dirtyColumns[position.x()] = true;
+            dirtyLines[position.y()] = true;
         }
 
         /**
-         * File a given two dimension array with the textual Block name.
-         * @param textBoard the board representation containing text elements only.
+         * Mark the whole board to be read again.
          */
-        private void fillWithTextBlocks (Text[][]textBoard){
-            getElements().stream().filter(item -> item.getID() instanceof Text)
-                    .forEach(block -> textBoard[block.getPosition().x()][block.getPosition().y()] = (Text) block.getID());
+        private void markAllDirty() {
+            dirty = true;
+            if(columnRules == null) return;
+
+            Arrays.fill(dirtyColumns, true);
+            Arrays.fill(dirtyLines, true);
         }
 
         /**
-         * Add rule based on the lines in the given text board.
-         * @param textBoard the board representation containing text elements only.
+         * Find the rules written along a column or a line of the board.
+         * @param x the column of the first cell.
+         * @param y the line of the first cell.
+         * @param dx the column step between two cells.
+         * @param dy the line step between two cells.
+         * @param length the number of cells to read.
+         * @return the rules found.
          */
-        private void addRuleFromLines(Text[][] textBoard) {
+        private List<Rule> findRules(int x, int y, int dx, int dy, int length) {
+            var found = new ArrayList<Rule>();
             var rule = new ArrayList<Text>();
-            for (int j = 0; j < getSize().y(); j++) {
-                for (int i = 0; i < getSize().x(); i++) {
-                    addTextToRule(textBoard[i][j], rule);
-                }
+            for (int k = 0; k < length; k++) {
+                addTextToRule(textAt(x + k * dx, y + k * dy), rule, found);
             }
+            addTextToRule(null, rule, found);
+            return found;
         }
 
         /**
-         * Add rule based on the columns in the given text board.
-         * @param textBoard the board representation containing text elements only.
+         * Return the text displayed at the specified cell, the last text block drawn in the cell.
+         * @param x the column of the cell.
+         * @param y the line of the cell.
+         * @return the text of the cell, or null if it contains no text.
          */
-        private void addRuleFromColumns(Text[][] textBoard) {
-            var rule = new ArrayList<Text>();
-            for (int i = 0; i < getSize().x(); i++) {
-                for (int j = 0; j < getSize().y(); j++) {
-                    addTextToRule(textBoard[i][j], rule);
-                }
+        private Text textAt(int x, int y) {
+            var cell = index.get(x, y);
+            for (int i = cell.size() - 1; i >= 0; i--) {
+                if(cell.get(i).getID() instanceof Text text) return text;
             }
+            return null;
         }
 
         /**
          * Decide if the specified text elements should be added to the rule.
          * @param text the text elements to add.
          * @param rule the rule where the text need to be added.
+         * @param found the rules found so far.
          */
-        private void addTextToRule(Text text, ArrayList<Text> rule) {
+        private void addTextToRule(Text text, ArrayList<Text> rule, List<Rule> found) {
             if(text == null) {
                 if(rule.size() >= RULE_MIN_SIZE) {
-                    rules.add(new Rule(rule));
+                    found.add(new Rule(rule));
                 }
                 if(!rule.isEmpty()) {
                     rule.clear();
@@ -199,12 +513,94 @@ public class Level {
         }
     }
 
+    /**
+     * Keep the level indexes up to date when a block moves, dies or changes identity.
+     */
+    private class Tracker implements BlockListener {
+        @Override
+        public void onMove(Block block, Vector2 previous) {
+            modified = true;
+            var position = block.getPosition();
+            hash.remove(block.getID(), previous.x(), previous.y(), block.isDead());
+            hash.add(block.getID(), position.x(), position.y(), block.isDead());
+            journal.recordMove(block, previous);
+            if(block.isDead()) return;
+
+            mover.invalidateVerdicts();
+            markDirty(previous);
+            markDirty(position);
+            index.move(block, previous);
+            if(block.getID() instanceof Text) {
+                rules.markDirty(previous);
+                rules.markDirty(block.getPosition());
+            }
+        }
+
+        @Override
+        public void onUpdate(Block block, BlockID previousID, boolean wasDead) {
+            modified = true;
+            var position = block.getPosition();
+            hash.remove(previousID, position.x(), position.y(), wasDead);
+            hash.add(block.getID(), position.x(), position.y(), block.isDead());
+            journal.recordUpdate(block, previousID, wasDead);
+            markDirty(position);
+            if((previousID instanceof Text && !wasDead) || (block.getID() instanceof Text && !block.isDead())) {
+                rules.markDirty(block.getPosition());
+            }
+            mover.invalidateVerdicts();
+            if(!wasDead) {
+                index.remove(block);
+                live.remove(block, Block.getPriority(previousID));
+                byID.remove(block, previousID);
+            }
+            if(!block.isDead()) {
+                index.add(block);
+                live.add(block);
+                byID.add(block);
+            }
+        }
+
+        /**
+         * Mark a cell as changed since the last time the changed cells were taken.
+         * @param position the position of the cell.
+         */
+        private void markDirty(Vector2 position) {
+            dirtyCells.set(position.y() * mover.getSize().x() + position.x());
+            markInteraction(position);
+        }
+
+        /**
+         * Start tracking a block.
+         * @param block the block to be tracked.
+         */
+        private void track(Block block) {
+            block.setListener(this);
+            block.setPropertyTable(properties);
+            hash.add(block.getID(), block.getPosition().x(), block.getPosition().y(), block.isDead());
+            mover.invalidateVerdicts();
+            if(!block.isDead()) {
+                index.add(block);
+                live.add(block);
+                byID.add(block);
+            }
+        }
+    }
+
     /**
      * Set of methods for moving and pushing blocks.
      */
     private class BlockMover {
+        // A verdict is packed as stamp << VERDICT_BITS | direction << 1 | verdict, entries of an older stamp are unknown.
+        private static final int VERDICT_BITS = 4;
+        private static final int DIRECTION_MASK = 0b111;
+        private static final int BLOCKED = 0;
+        private static final int FREE = 1;
+        private static final int UNKNOWN = -1;
+
         private final Vector2 size;
         private boolean changed = true;
+        private int[] verdicts;
+        private int verdictStamp = 1;
 
         public BlockMover(Vector2 size) {
             this.size = size;
@@ -240,6 +636,7 @@ public class Level {
          */
         public void add(Block block) {
             elements.add(block);
+            tracker.track(block);
         }
 
         /**
@@ -247,58 +644,166 @@ public class Level {
          * @param position the position to be checked.
          */
         public boolean notInBound(Vector2 position) {
-            return position.x() < 0 || position.x() >= size.x() ||
-                    position.y() < 0 || position.y() >= size.y();
+            return notInBound(position.x(), position.y());
         }
 
         /**
-         * Move a block in the context of the board.
-         * @param block the block to be moved.
-         * @param direction the direction in which the block is to be moved.
+         * Return true if the given cell is not in the board.
+         * @param x the column of the cell.
+         * @param y the line of the cell.
+         */
+        public boolean notInBound(int x, int y) {
+            return x < 0 || x >= size.x() || y < 0 || y >= size.y();
+        }
+
+        /**
+         * Move blocks in the context of the board, pushing the blocks in front of them.
+         * For each block, the cells in front of it are walked once to decide if the move is possible and to collect
+         * the pushed blocks. Nothing moves before every block is resolved, then the batch is moved, the pushed blocks
+         * of each chain from the farthest, a block pushed by several chains moving only once.
+         * @param blocks the blocks to be moved.
+         * @param direction the direction in which the blocks are to be moved.
          */
-        private void moveInContext(Block block, Direction direction) {
-            if(direction == Direction.NONE || block == null) return;
+        private void moveAll(List<Block> blocks, Direction direction) {
+            if(direction == Direction.NONE || blocks.isEmpty()) return;
+
+            var batch = new ArrayList<Block>();
+            var inBatch = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+            for (var block : blocks) {
+                var event = new PushChainEvent();
+                event.begin();
+                var position = block.getPosition();
+                if(!canMove(position.x(), position.y(), direction)) continue;
+
+                var pushed = collectPushed(position, direction);
+                var length = 1;
+                for (int i = pushed.size() - 1; i >= 0; i--) {
+                    for (var item : pushed.get(i)) {
+                        if(inBatch.add(item)) batch.add(item);
+                    }
+                    length += pushed.get(i).size();
+                }
+                if(inBatch.add(block)) batch.add(block);
 
-            if(isValidMove(block, direction)) {
-                push(block, direction);
-                move(block, direction);
-                changed = true;
+                if(length > 1 && event.shouldCommit()) {
+                    event.direction = direction.name();
+                    event.length = length;
+                    event.commit();
+                }
             }
+
+            batch.forEach(block -> move(block, direction));
+            if(!batch.isEmpty()) changed = true;
         }
 
         /**
-         * Return true if a block can move in a specified direction.
-         * @param block the block to be moved.
-         * @param direction the direction in which the block is to be moved.
+         * Return the blocks pushed by a move out of a cell: the PUSH blocks of the following cells, up to the first
+         * cell holding none. YOU blocks are never pushed, they move on their own.
+         * @param position the cell of the moving block.
+         * @param direction the direction of the move.
+         * @return the pushed blocks of each cell, the nearest cell first.
          */
-        private boolean isValidMove(Block block, Direction direction) {
-            var nextPos = block.getPosition().add(direction);
-            if(notInBound(nextPos)) return false;
+        private List<List<Block>> collectPushed(Vector2 position, Direction direction) {
+            var step = direction.toVector2();
+            var x = position.x() + step.x();
+            var y = position.y() + step.y();
+            var pushed = new ArrayList<List<Block>>();
+            while(!notInBound(x, y)) {
+                var cellPushed = new ArrayList<Block>();
+                for (var item : index.get(x, y)) {
+                    if(item.hasProperty(Property.PUSH) && !item.hasProperty(Property.YOU)) cellPushed.add(item);
+                }
+                if(cellPushed.isEmpty()) break;
 
-            var nextBlocks = findByPosition(nextPos);
-            if(nextBlocks.isEmpty()) return true;
+                pushed.add(cellPushed);
+                x += step.x();
+                y += step.y();
+            }
+            return pushed;
+        }
 
-            if(nextBlocks.stream().anyMatch(blk -> blk.hasProperty(Property.STOP)))
-                return false;
+        /**
+         * Return true if the blocks of a cell can move in a specified direction: the cells in front of it
+         * are walked until a cell which is out of the board, empty, holds a STOP block or holds no PUSH block.
+         * Every cell walked gets the same verdict, which is kept until a block or a property changes.
+         * @param x the column of the cell.
+         * @param y the line of the cell.
+         * @param direction the direction of the move.
+         */
+        private boolean canMove(int x, int y, Direction direction) {
+            var step = direction.toVector2();
+            var i = x;
+            var j = y;
+            var walked = 0;
+            int verdict;
+            while(true) {
+                verdict = verdict(i, j, direction);
+                if(verdict != UNKNOWN) break;
+
+                walked++;
+                i += step.x();
+                j += step.y();
+                if(notInBound(i, j)) {
+                    verdict = BLOCKED;
+                    break;
+                }
+                verdict = cellVerdict(index.get(i, j));
+                if(verdict != UNKNOWN) break;
+            }
 
-            if(nextBlocks.stream().noneMatch(blk -> blk.hasProperty(Property.PUSH)))
-                return true;
+            for (int k = 0; k < walked; k++) {
+                setVerdict(x + k * step.x(), y + k * step.y(), direction, verdict);
+            }
+            return verdict == FREE;
+        }
 
-            return nextBlocks.stream().allMatch(item -> isValidMove(item, direction));
+        /**
+         * Return the verdict of a move into a cell.
+         * @param cell the blocks of the cell entered.
+         * @return FREE if the cell is empty or holds no PUSH block, BLOCKED if it holds a STOP block,
+         * UNKNOWN if its blocks must be pushed further.
+         */
+        private static int cellVerdict(List<Block> cell) {
+            var push = false;
+            for (var item : cell) {
+                if(item.hasProperty(Property.STOP)) return BLOCKED;
+                push |= item.hasProperty(Property.PUSH);
+            }
+            return push ? UNKNOWN : FREE;
         }
 
         /**
-         * Push a block in a specified direction.
-         * @param block the block to be pushed.
-         * @param direction the direction in which the blocks is to be pushed.
+         * Return the verdict kept for a cell and a direction.
+         * @param x the column of the cell.
+         * @param y the line of the cell.
+         * @param direction the direction of the move.
+         * @return FREE, BLOCKED, or UNKNOWN if the cell was not walked since the last change.
          */
-        private void push(Block block, Direction direction) {
-            var nextPos = block.getPosition().add(direction);
-            var pushBlocks = findByPosition(nextPos).stream()
-                    .filter(item -> item.hasProperty(Property.PUSH) && !item.hasProperty(Property.YOU))
-                    .collect(Collectors.toList());
+        private int verdict(int x, int y, Direction direction) {
+            if(verdicts == null) return UNKNOWN;
+
+            var entry = verdicts[y * size.x() + x];
+            if(entry >>> VERDICT_BITS != verdictStamp || (entry >>> 1 & DIRECTION_MASK) != direction.ordinal()) {
+                return UNKNOWN;
+            }
+            return entry & 1;
+        }
+
+        private void setVerdict(int x, int y, Direction direction, int verdict) {
+            if(verdicts == null) verdicts = new int[size.x() * size.y()];
+            verdicts[y * size.x() + x] = verdictStamp << VERDICT_BITS | direction.ordinal() << 1 | verdict;
+        }
 
-            pushBlocks.forEach(item -> moveInContext(item, direction));
+        /**
+         * Forget every verdict, after a block or a property changed.
+         */
+        public void invalidateVerdicts() {
+            verdictStamp++;
+            if(verdictStamp >>> (Integer.SIZE - VERDICT_BITS) != 0) {
+                // The stamp wrapped, old entries could look recent.
+                verdictStamp = 1;
+                if(verdicts != null) Arrays.fill(verdicts, 0);
+            }
         }
 
         /**
@@ -313,12 +818,12 @@ public class Level {
     }
 
     /**
-     * Return all the blocks still alive.
-     * @return the list of Block of blocks which are not dead.
+     * Return all the blocks still alive, ordered by priority. The returned list is an unmodifiable view
+     * kept up to date by this level, iterating it does not copy nor sort the blocks.
+     * @return the view of the blocks which are not dead.
      */
     public List<Block> getElements() {
-        return elements.stream().sorted(Comparator.comparingInt(Block::getPriority))
-                .filter(Predicate.not(Block::isDead)).collect(Collectors.toList());
+        return live.view();
     }
 
     /**
@@ -335,7 +840,7 @@ public class Level {
      * @return the list of block with the given position.
      */
     public List<Block> findByPosition(Vector2 position) {
-        return getElements().stream().filter(block -> block.getPosition().equals(position)).collect(Collectors.toList());
+        return new ArrayList<>(index.get(position));
     }
 
     /**
@@ -344,7 +849,8 @@ public class Level {
      * @return  the list of block with the given identifier.
      */
     public List<Block> findByID(BlockID id) {
-        return getElements().stream().filter(block -> block.getID().equals(id)).collect(Collectors.toList());
+        if(id == null) return new ArrayList<>();
+        return new ArrayList<>(byID.get(id));
     }
 
     /**
@@ -362,7 +868,18 @@ public class Level {
      * @param direction the direction in which the block is to be moved.
      */
     public void move(Block block, Direction direction) {
-        mover.moveInContext(block, direction);
+        if(block == null) return;
+        mover.moveAll(List.of(block), direction);
+    }
+
+    /**
+     * Move blocks together in the specified direction. Every move is decided on the board as it is before
+     * the first block moves, then the movers and the blocks they push are moved in one batch.
+     * @param blocks the blocks to be moved.
+     * @param direction the direction in which the blocks are to be moved.
+     */
+    public void moveAll(List<Block> blocks, Direction direction) {
+        mover.moveAll(blocks, direction);
     }
 
     /**
@@ -370,8 +887,64 @@ public class Level {
      * @param elements the elements to load.
      */
     public void loadElements(List<Block> elements) {
+        this.elements.forEach(block -> {
+            block.setListener(null);
+            block.setPropertyTable(null);
+        });
         this.elements.clear();
-        this.elements.addAll(elements);
+        index.clear();
+        live.clear();
+        byID.clear();
+        hash.clear();
+        journal.clear();
+        rules.markAllDirty();
+        dirtyCells.set(0, getSize().x() * getSize().y());
+        interactionCells.set(0, getSize().x() * getSize().y());
+        mover.setChanged(true);
+        elements.forEach(mover::add);
+    }
+
+    /**
+     * Return true if at least one living block has the specified property, without scanning the blocks.
+     * @param property the property to check.
+     */
+    private boolean isAssigned(Property property) {
+        for (int i = 0; i < BlockID.count(); i++) {
+            var id = BlockID.fromIndex(i);
+            if((properties.getMask(id) & (1L << property.ordinal())) != 0 && !byID.get(id).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resolve the interactions of the cells which changed since the last resolution: each cell is looked up once
+     * in the interaction table, and the effects are only applied in the cells where something can happen.
+     */
+    private void resolveInteractions() {
+        var cells = interactionCells;
+        interactionCells = new BitSet(cells.size());
+        var width = getSize().x();
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            var x = cell % width;
+            var y = cell / width;
+            var blocks = index.get(x, y);
+            var mask = 0L;
+            for (var block : blocks) {
+                mask |= properties.getMask(block.getID());
+            }
+            var interactions = InteractionTable.interactions(mask, blocks.size() > 1);
+            if(interactions == 0) continue;
+
+            for (int i = 0; i < InteractionTable.PROPERTIES.size(); i++) {
+                if(!InteractionTable.fires(interactions, i)) continue;
+
+                var property = InteractionTable.PROPERTIES.get(i);
+                // The effects kill blocks of the cell, iterate over a copy.
+                for (var block : new ArrayList<>(index.get(x, y))) {
+                    if(!block.isDead() && block.hasProperty(property)) property.getEffect().apply(this, block);
+                }
+            }
+        }
     }
 
     /**
@@ -380,30 +953,56 @@ public class Level {
      * @param property the property to add.
      */
     public void addPropertyToAll(BlockID identifier, Property property) {
-        getElements().stream().filter(block -> block.getID() == identifier)
-                .forEach(block -> block.addProperty(property));
+        if(identifier == null) return;
+        properties.add(identifier, property);
+        mover.invalidateVerdicts();
     }
 
     /**
      * Clear the properties in this level blocks.
      */
     public void clearProperties() {
-        getElements().forEach(Block::clearProperties);
+        var event = new ClearPropertiesEvent();
+        event.begin();
+        var hadProperties = event.isEnabled() && !properties.isEmpty();
+        properties.clear();
+        mover.invalidateVerdicts();
+
+        if(event.shouldCommit()) {
+            event.describe(this, hadProperties);
+            event.commit();
+        }
     }
 
     /**
      * Apply the properties on this level blocks based on their order in the enum Property.
+     * The interactions between the blocks of a cell are only resolved in the cells which changed.
+     * @see InteractionTable
      */
     public void applyProperties() {
-        var properties = Property.values();
+        var event = new ApplyPropertiesEvent();
+        event.begin();
+        var resolved = false;
 
-        for (Property property : properties) {
-            var blocks = findByProperty(property);
+        for (Property property : Property.values()) {
             var effect = property.getEffect();
+            if(effect == null || !isAssigned(property)) continue;
+            // YOU blocks only act when the player moves.
+            if(property == Property.YOU && moveDirection == Direction.NONE) continue;
 
-            if(effect != null) {
-                blocks.forEach(effect::apply);
+            if(InteractionTable.PROPERTIES.contains(property)) {
+                if(!resolved) resolveInteractions();
+                resolved = true;
+            }
+            else {
+                effect.applyAll(this, findByProperty(property));
             }
         }
+        if(!resolved) interactionCells.clear();
+
+        if(event.shouldCommit()) {
+            event.describe(this, modified);
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,214 @@
+package baba.level;
+
+import baba.block.BlockID;
+import baba.utils.Vector2;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compile CSV level files into a binary form which can be loaded without any text parsing.
+ * <p>
+ * The compiled file of {@code levels/name.csv} is {@code levels/compiled/name.lvl}. It holds a magic number,
+ * the format version, a hash of the identifier numbering, the size and modification time of the CSV file
+ * it was compiled from, the board size and the blocks packed as in {@link BoardState}, in file order.
+ * A compiled file whose source changed, or written with another identifier numbering, is stale and ignored.
+ */
+public final class LevelCompiler {
+    private static final String COMPILED_FOLDER = "compiled";
+    private static final String SOURCE_EXTENSION = ".csv";
+    private static final String COMPILED_EXTENSION = ".lvl";
+    private static final int MAGIC = 0x424C564C; // "BLVL"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES + 2 * Long.BYTES
+            + 2 * Short.BYTES + Integer.BYTES;
+
+    /**
+     * Content of a level file: the size of the board and its blocks, packed in file order.
+     * @param size the size of the board.
+     * @param blocks the packed blocks.
+     * @see BoardState#pack(BlockID, int, int, boolean)
+     */
+    record Board(Vector2 size, int[] blocks) {}
+
+    private LevelCompiler() {}
+
+    /**
+     * Return true if the specified file is a CSV level file.
+     * @param file the file to test.
+     * @return true if the file is a level source.
+     */
+    public static boolean isLevelSource(File file) {
+        return file.isFile() && file.getName().endsWith(SOURCE_EXTENSION);
+    }
+
+    /**
+     * Return the compiled file of a CSV level file.
+     * @param source the CSV level file.
+     * @return the compiled level file.
+     */
+    public static File compiledFile(File source) {
+        var name = source.getName();
+        if(name.endsWith(SOURCE_EXTENSION)) name = name.substring(0, name.length() - SOURCE_EXTENSION.length());
+        return new File(new File(source.getAbsoluteFile().getParentFile(), COMPILED_FOLDER), name + COMPILED_EXTENSION);
+    }
+
+    /**
+     * Read a level, from its compiled file if it is up to date, else from the CSV file.
+     * @param source the CSV level file.
+     * @return the content of the level.
+     */
+    static Board load(File source) throws IOException {
+        var board = readCompiled(source);
+        return board != null ? board : readSource(source);
+    }
+
+    /**
+     * Read the compiled file of a level.
+     * @param source the CSV level file.
+     * @return the content of the level, or null if the compiled file is missing, stale or invalid.
+     */
+    static Board readCompiled(File source) {
+        var compiled = compiledFile(source);
+        if(!compiled.isFile()) return null;
+
+        try {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(compiled.toPath()));
+            if(buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getInt() != layoutHash())
+                return null;
+
+            var sourceLength = buffer.getLong();
+            var sourceModified = buffer.getLong();
+            if(source.exists() && (source.length() != sourceLength || source.lastModified() != sourceModified))
+                return null;
+
+            var size = new Vector2(buffer.getShort(), buffer.getShort());
+            if(size.x() <= 0 || size.y() <= 0 || size.x() > BoardState.MAX_SIZE || size.y() > BoardState.MAX_SIZE)
+                return null;
+
+            // A corrupted count must not allocate more than the file holds.
+            var count = buffer.getInt();
+            if(count < 0 || count != buffer.remaining() / Integer.BYTES || buffer.remaining() % Integer.BYTES != 0)
+                return null;
+
+            var blocks = new int[count];
+            buffer.asIntBuffer().get(blocks);
+            for (int block : blocks) {
+                if(!BoardState.isValid(block, size)) return null;
+            }
+            return new Board(size, blocks);
+        } catch (IOException | BufferUnderflowException err) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse a CSV level file. The first line holds the number of columns and lines of the board,
+     * each following line a line of the board; unknown tokens and blocks out of the board are ignored.
+     * @param source the CSV level file.
+     * @return the content of the level.
+     */
+    static Board readSource(File source) throws IOException {
+        try(var reader = new BufferedReader(new FileReader(source))) {
+            var header = reader.readLine();
+            if(header == null) throw new IOException("empty level file " + source);
+
+            var dimensions = header.split(",");
+            Vector2 size;
+            try {
+                size = new Vector2(Integer.parseInt(dimensions[0].trim()), Integer.parseInt(dimensions[1].trim()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException err) {
+                throw new IOException("invalid level dimensions " + header, err);
+            }
+            if(size.x() <= 0 || size.y() <= 0 || size.x() > BoardState.MAX_SIZE || size.y() > BoardState.MAX_SIZE)
+                throw new IOException("invalid level dimensions " + size);
+
+            var blocks = new ArrayList<Integer>();
+            String line;
+            for (int j = 0; (line = reader.readLine()) != null && j < size.y(); j++) {
+                var tokens = line.split(",");
+                for (int i = 0; i < tokens.length && i < size.x(); i++) {
+                    var tag = BlockID.valueOf(tokens[i]);
+                    if(tag != null) blocks.add(BoardState.pack(tag, i, j, false));
+                }
+            }
+            return new Board(size, blocks.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Compile a CSV level file. The compiled file replaces the previous one atomically.
+     * @param source the CSV level file.
+     * @return the compiled level file.
+     */
+    public static File compile(File source) throws IOException {
+        Objects.requireNonNull(source);
+        var board = readSource(source);
+        var compiled = compiledFile(source);
+        Files.createDirectories(compiled.getParentFile().toPath());
+
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + board.blocks().length * Integer.BYTES);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(layoutHash());
+        buffer.putLong(source.length()).putLong(source.lastModified());
+        buffer.putShort((short) board.size().x()).putShort((short) board.size().y());
+        buffer.putInt(board.blocks().length);
+        for (int block : board.blocks()) {
+            buffer.putInt(block);
+        }
+
+        var temporary = new File(compiled.getParentFile(), compiled.getName() + ".tmp").toPath();
+        Files.write(temporary, buffer.array());
+        try {
+            Files.move(temporary, compiled.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException err) {
+            Files.move(temporary, compiled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return compiled;
+    }
+
+    /**
+     * Return a hash of the identifier numbering, so that compiled files written before
+     * a change of the identifiers are detected as stale.
+     * @return the hash of the identifier names, in index order.
+     */
+    private static int layoutHash() {
+        var hash = 1;
+        for (int i = 0; i < BlockID.count(); i++) {
+            hash = 31 * hash + BlockID.fromIndex(i).toString().hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Compile level files from the command line.
+     * Usage: LevelCompiler PATH... where each path is a CSV level file or a folder of level files.
+     * @param args the arguments.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            throw new IllegalArgumentException("command require a level file or folder");
+        }
+
+        for (var arg : args) {
+            var path = new File(arg);
+            var files = path.isDirectory()
+                    ? Arrays.stream(Objects.requireNonNull(path.listFiles()))
+                            .filter(LevelCompiler::isLevelSource).sorted().toList()
+                    : List.of(path);
+            for (var file : files) {
+                System.out.println("Compiled " + file + " to " + compile(file));
+            }
+        }
+    }
+}
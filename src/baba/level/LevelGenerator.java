@@ -0,0 +1,358 @@
+package baba.level;
+
+import baba.block.identifiers.Noun;
+import baba.block.identifiers.Property;
+import baba.block.identifiers.RealObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Generate CSV levels of any size for scale testing. The same settings and seed always give the same level.
+ * <p>
+ * A generated level holds, in this order of placement:
+ * <ul>
+ *     <li>rules written on lines and columns, the first one being BABA IS YOU, and ROCK IS PUSH when there are
+ *     push chains; each side of IS has a chain of operands joined by AND;</li>
+ *     <li>push chains: a BABA followed by a line of rocks, with room to push them;</li>
+ *     <li>single text blocks scattered until the text density is reached, never next to another block on a line
+ *     or a column so that they do not write rules;</li>
+ *     <li>scenery objects scattered until the object density is reached.</li>
+ * </ul>
+ * Rules and push chains are surrounded by empty cells so that they do not touch each other.
+ */
+public final class LevelGenerator {
+    private static final Noun[] NOUNS = Noun.values();
+    // BABA and ROCK are left out of the random rules so that the player and the push chains survive the first turn.
+    private static final Noun[] SUBJECTS = Arrays.stream(NOUNS)
+            .filter(noun -> noun != Noun.BABA && noun != Noun.ROCK)
+            .toArray(Noun[]::new);
+    private static final Property[] PROPERTIES = {
+            Property.PUSH, Property.STOP, Property.WIN, Property.HOT, Property.MELT, Property.SINK, Property.DEFEAT
+    };
+    private static final RealObject[] SCENERY = {
+            RealObject.WALL, RealObject.GRASS, RealObject.TILE, RealObject.WATER, RealObject.LAVA, RealObject.FLAG
+    };
+    private static final int MAX_PLACEMENT_TRIES = 10_000;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private double textDensity = 0.05;
+    private double objectDensity = 0.2;
+    private int ruleCount = 8;
+    private int andChain = 1;
+    private int pushChain = 3;
+    private int pushChainCount = 1;
+
+    /**
+     * Create a generator of levels of the specified size.
+     * @param width the number of columns of the levels.
+     * @param height the number of lines of the levels.
+     * @param seed the seed of the random choices.
+     */
+    public LevelGenerator(int width, int height, long seed) {
+        if(width <= 0 || height <= 0 || width > BoardState.MAX_SIZE || height > BoardState.MAX_SIZE)
+            throw new IllegalArgumentException("invalid level size " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+    }
+
+    /**
+     * Set the fraction of the cells holding a text block, rules included.
+     * @param textDensity the text density, between 0 and 1.
+     */
+    public void setTextDensity(double textDensity) {
+        if(textDensity < 0 || textDensity > 1) throw new IllegalArgumentException("invalid density " + textDensity);
+        this.textDensity = textDensity;
+    }
+
+    /**
+     * Set the fraction of the cells holding a scenery object.
+     * @param objectDensity the object density, between 0 and 1.
+     */
+    public void setObjectDensity(double objectDensity) {
+        if(objectDensity < 0 || objectDensity > 1) throw new IllegalArgumentException("invalid density " + objectDensity);
+        this.objectDensity = objectDensity;
+    }
+
+    /**
+     * Set the number of rules written on the board.
+     * @param ruleCount the number of rules, at least 1 for BABA IS YOU.
+     */
+    public void setRuleCount(int ruleCount) {
+        if(ruleCount < 1) throw new IllegalArgumentException("a level needs at least one rule");
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * Set the number of operands joined by AND on each side of the rules, BABA IS YOU excepted.
+     * @param andChain the number of operands of each side.
+     */
+    public void setAndChain(int andChain) {
+        if(andChain < 1) throw new IllegalArgumentException("invalid AND chain length " + andChain);
+        this.andChain = andChain;
+    }
+
+    /**
+     * Set the number of rocks in front of the BABA of each push chain.
+     * @param pushChain the number of rocks of a chain, 0 for no push chain.
+     */
+    public void setPushChain(int pushChain) {
+        if(pushChain < 0) throw new IllegalArgumentException("invalid push chain length " + pushChain);
+        this.pushChain = pushChain;
+    }
+
+    /**
+     * Set the number of push chains.
+     * @param pushChainCount the number of push chains.
+     */
+    public void setPushChainCount(int pushChainCount) {
+        if(pushChainCount < 0) throw new IllegalArgumentException("invalid push chain count " + pushChainCount);
+        this.pushChainCount = pushChainCount;
+    }
+
+    /**
+     * Generate a level.
+     * @return the grid of the level, each cell holding the token of a block or null.
+     */
+    public String[][] generate() {
+        var random = new SplittableRandom(seed);
+        var grid = new String[height][width];
+        var reserved = new boolean[height][width];
+
+        var rules = new ArrayList<List<String>>();
+        rules.add(List.of(Noun.BABA.toString(), "IS", Property.YOU.toString()));
+        if(pushChain > 0 && pushChainCount > 0) {
+            rules.add(List.of(Noun.ROCK.toString(), "IS", Property.PUSH.toString()));
+        }
+        while(rules.size() < ruleCount) {
+            rules.add(randomRule(random));
+        }
+        for (var rule : rules) {
+            place(grid, reserved, random, rule, random.nextBoolean());
+        }
+
+        if(pushChain > 0) {
+            var chain = new ArrayList<String>();
+            chain.add(RealObject.BABA.toString());
+            for (int i = 0; i < pushChain; i++) {
+                chain.add(RealObject.ROCK.toString());
+            }
+            // Leave room after the rocks so that the chain can be pushed.
+            for (int i = 0; i < pushChain; i++) {
+                chain.add(null);
+            }
+            for (int i = 0; i < pushChainCount; i++) {
+                place(grid, reserved, random, chain, false);
+            }
+        }
+
+        var area = (long) width * height;
+        var texts = textTokens();
+        var ruleTexts = rules.stream().mapToInt(List::size).sum();
+        scatter(grid, reserved, random, (int) (area * textDensity) - ruleTexts, texts, true);
+        scatter(grid, reserved, random, (int) (area * objectDensity),
+                Arrays.stream(SCENERY).map(RealObject::toString).toArray(String[]::new), false);
+        return grid;
+    }
+
+    /**
+     * Write a generated level as CSV.
+     * @param writer the destination of the level.
+     */
+    public void write(Writer writer) throws IOException {
+        var grid = generate();
+        var output = writer instanceof BufferedWriter buffered ? buffered : new BufferedWriter(writer);
+        output.write(width + "," + height);
+        output.newLine();
+        for (var line : grid) {
+            for (int i = 0; i < line.length; i++) {
+                if(i > 0) output.write(',');
+                if(line[i] != null) output.write(line[i]);
+            }
+            output.newLine();
+        }
+        output.flush();
+    }
+
+    /**
+     * Write a generated level in a CSV file.
+     * @param path the level file.
+     */
+    public void write(Path path) throws IOException {
+        try(var writer = Files.newBufferedWriter(path)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Return a random rule with the configured number of operands on each side.
+     * @param random the source of random choices.
+     * @return the tokens of the rule.
+     */
+    private List<String> randomRule(SplittableRandom random) {
+        var rule = new ArrayList<String>();
+        for (int i = 0; i < andChain; i++) {
+            if(i > 0) rule.add("AND");
+            rule.add(SUBJECTS[random.nextInt(SUBJECTS.length)].toString());
+        }
+        rule.add("IS");
+        for (int i = 0; i < andChain; i++) {
+            if(i > 0) rule.add("AND");
+            rule.add(PROPERTIES[random.nextInt(PROPERTIES.length)].toString());
+        }
+        return rule;
+    }
+
+    /**
+     * Place a sequence of tokens on a line or a column of free cells, and reserve the cells around it.
+     * @param grid the grid of the level.
+     * @param reserved the cells already used or reserved.
+     * @param random the source of random choices.
+     * @param tokens the tokens to place, null for a cell to keep empty.
+     * @param vertical true to place the tokens on a column.
+     */
+    private void place(String[][] grid, boolean[][] reserved, SplittableRandom random,
+                       List<String> tokens, boolean vertical) {
+        var length = tokens.size();
+        var spanX = vertical ? 1 : length;
+        var spanY = vertical ? length : 1;
+        if(spanX > width || spanY > height)
+            throw new IllegalArgumentException("level too small to place " + length + " blocks");
+
+        for (int tries = 0; tries < MAX_PLACEMENT_TRIES; tries++) {
+            var x = random.nextInt(width - spanX + 1);
+            var y = random.nextInt(height - spanY + 1);
+            if(!isFree(reserved, x - 1, y - 1, spanX + 2, spanY + 2)) continue;
+
+            for (int i = 0; i < length; i++) {
+                grid[vertical ? y + i : y][vertical ? x : x + i] = tokens.get(i);
+            }
+            reserve(reserved, x - 1, y - 1, spanX + 2, spanY + 2);
+            return;
+        }
+        throw new IllegalArgumentException("level too crowded to place " + length + " blocks");
+    }
+
+    private boolean isFree(boolean[][] reserved, int x, int y, int spanX, int spanY) {
+        for (int j = Math.max(y, 0); j < Math.min(y + spanY, height); j++) {
+            for (int i = Math.max(x, 0); i < Math.min(x + spanX, width); i++) {
+                if(reserved[j][i]) return false;
+            }
+        }
+        return true;
+    }
+
+    private void reserve(boolean[][] reserved, int x, int y, int spanX, int spanY) {
+        for (int j = Math.max(y, 0); j < Math.min(y + spanY, height); j++) {
+            for (int i = Math.max(x, 0); i < Math.min(x + spanX, width); i++) {
+                reserved[j][i] = true;
+            }
+        }
+    }
+
+    /**
+     * Put random tokens on random free cells. Fewer tokens are put if there are not enough suitable cells.
+     * @param grid the grid of the level.
+     * @param reserved the cells already used or reserved.
+     * @param random the source of random choices.
+     * @param count the number of tokens to put.
+     * @param tokens the tokens to choose from.
+     * @param isolated true to leave out the cells next to another block on their line or column.
+     */
+    private void scatter(String[][] grid, boolean[][] reserved, SplittableRandom random, int count, String[] tokens,
+                         boolean isolated) {
+        if(count <= 0) return;
+
+        var free = new int[width * height];
+        var freeCount = 0;
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                if(!reserved[j][i]) free[freeCount++] = j * width + i;
+            }
+        }
+
+        // Partial Fisher-Yates shuffle: the first cells of the array are chosen uniformly.
+        var placed = 0;
+        for (int k = 0; k < freeCount && placed < count; k++) {
+            var swap = k + random.nextInt(freeCount - k);
+            var cell = free[swap];
+            free[swap] = free[k];
+            free[k] = cell;
+
+            var x = cell % width;
+            var y = cell / width;
+            if(isolated && hasNeighbour(grid, x, y)) continue;
+            grid[y][x] = tokens[random.nextInt(tokens.length)];
+            reserved[y][x] = true;
+            placed++;
+        }
+    }
+
+    private boolean hasNeighbour(String[][] grid, int x, int y) {
+        return (x > 0 && grid[y][x - 1] != null) || (x < width - 1 && grid[y][x + 1] != null)
+                || (y > 0 && grid[y - 1][x] != null) || (y < height - 1 && grid[y + 1][x] != null);
+    }
+
+    private static String[] textTokens() {
+        var tokens = new ArrayList<String>();
+        for (var noun : NOUNS) {
+            tokens.add(noun.toString());
+        }
+        for (var property : Property.values()) {
+            tokens.add(property.toString());
+        }
+        tokens.add("IS");
+        tokens.add("AND");
+        return tokens.toArray(String[]::new);
+    }
+
+    /**
+     * Generate a level from the command line.
+     * Usage: LevelGenerator OUTPUT WIDTH HEIGHT [--seed SEED] [--text DENSITY] [--objects DENSITY] [--rules COUNT]
+     * [--and LENGTH] [--push LENGTH] [--chains COUNT].
+     * @param args the arguments.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 3) {
+            throw new IllegalArgumentException("command require an output file, a width and a height");
+        }
+
+        long seed = new Random().nextLong();
+        var options = new ArrayList<String[]>();
+        for (int i = 3; i < args.length; i += 2) {
+            if(args.length - i <= 1) {
+                throw new IllegalArgumentException("missing value for " + args[i]);
+            }
+            if(args[i].equals("--seed")) seed = Long.parseLong(args[i + 1]);
+            else options.add(new String[] { args[i], args[i + 1] });
+        }
+
+        var generator = new LevelGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+        for (var option : options) {
+            switch (option[0]) {
+                case "--text" -> generator.setTextDensity(Double.parseDouble(option[1]));
+                case "--objects" -> generator.setObjectDensity(Double.parseDouble(option[1]));
+                case "--rules" -> generator.setRuleCount(Integer.parseInt(option[1]));
+                case "--and" -> generator.setAndChain(Integer.parseInt(option[1]));
+                case "--push" -> generator.setPushChain(Integer.parseInt(option[1]));
+                case "--chains" -> generator.setPushChainCount(Integer.parseInt(option[1]));
+                default -> throw new IllegalArgumentException("unknown option " + option[0]);
+            }
+        }
+
+        var path = Path.of(args[0]);
+        generator.write(path);
+        System.out.println("Generated " + path + " with seed " + seed);
+    }
+}
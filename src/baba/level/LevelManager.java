@@ -1,7 +1,8 @@
 package baba.level;
 
-import baba.block.BlockID;
+import baba.events.TickEvent;
 import baba.rules.Rule;
+import baba.utils.Direction;
 import baba.utils.DisplayComponent;
 import baba.utils.InputComponent;
 import baba.utils.SaveLoader;
@@ -10,25 +11,53 @@ import fr.umlv.zen5.ApplicationContext;
 
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * Singleton class to handle level chaining and basic level commands.
+ * The levels following the current one are loaded in the background, so that level transitions do not wait for
+ * the level files to be read.
  */
 public final class LevelManager {
     private static final LevelManager instance = new LevelManager();
+    private static final int UNDO_CHANGES_PER_STEP = 1000;
+    private static final int PRELOADED_LEVELS = 2;
+    private static final long REPLAY_TICK_DELAY = 150; // in milliseconds
 
     private ApplicationContext context;
     private List<File> levelFiles = null;
     private Level currentLevel = null;
     private File currentLevelFile;
     private int index;
+    private int undoSteps = 1000;
+    private int saveSlot = 0;
+    private SaveLoader.Save pendingLoad = null;
+    private String recordingFolder = null;
+    private Replay.Recorder recorder = null;
+    private boolean tickRecorded = false;
+    private Replay replay = null;
 
     private final List<Rule> startingRule = new ArrayList<>();
+    private final Map<File, Future<Level>> preloaded = new HashMap<>();
+    private final ExecutorService preloader = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "level-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Return this level manager instance.
@@ -50,7 +79,6 @@ public final class LevelManager {
         this.context = context;
         DisplayComponent.init(context);
         InputComponent.init(context);
-        BlockID.init();
     }
 
     /**
@@ -81,12 +109,13 @@ public final class LevelManager {
     }
 
     /**
-     * Set the default level folder. Levels are sorted by name and played one after another.
+     * Set the default level folder. The CSV levels of the folder are sorted by name and played one after another.
      * @param folder the folder of the levels.
      */
     public void setStartingFolder(String folder) {
         levelFiles = Arrays.stream(
                 Objects.requireNonNull(new File(folder).listFiles()))
+                .filter(LevelCompiler::isLevelSource)
                 .sorted().collect(Collectors.toList()
         );
     }
@@ -116,12 +145,165 @@ public final class LevelManager {
      * @param file the level file, in this case the current level to be played.
      */
     public void startLevel(File file) {
-        currentLevel = new Level(file);
+        currentLevel = takeLevel(file);
+        currentLevel.setUndoLimits(undoSteps, undoSteps * UNDO_CHANGES_PER_STEP);
         currentLevelFile = file;
+        if(pendingLoad != null && pendingLoad.levelName().equals(file.getName())) {
+            restore(pendingLoad);
+        }
+        else if(recordingFolder != null) {
+            recorder = new Replay.Recorder(file, startingRule);
+        }
+        pendingLoad = null;
+
+        // The level only changes after an input: wait for one, update until the board is stable, then publish the frame.
+        var metrics = new LoopMetrics();
+        currentLevel.advance(Direction.NONE);
+        DisplayComponent.publishFrame();
+        if(replay != null) {
+            playReplay();
+        }
         while(!currentLevel.isFinished()) {
-            InputComponent.processInput();
-            currentLevel.update();
-            DisplayComponent.render();
+            metrics.waitStarted();
+            var event = InputComponent.waitInput();
+            metrics.inputReceived();
+
+            var tick = new TickEvent();
+            tick.begin();
+            tickRecorded = false;
+            InputComponent.processInput(event);
+            var direction = InputComponent.getMoveDirection();
+            // Undo, redo and reset record their own tick; any other input is a tick, with or without a move.
+            if(!tickRecorded) record(Replay.Command.of(direction));
+            var changed = currentLevel.advance(direction);
+            DisplayComponent.publishFrame();
+            metrics.framePublished();
+
+            if(tick.shouldCommit()) {
+                tick.direction = direction.name();
+                tick.describe(currentLevel, changed);
+                tick.commit();
+            }
+        }
+
+        finishRecording();
+        System.out.println(getCurrentLevelName() + ": " + metrics);
+        if(currentLevel.isWon()) {
+            System.out.println("Congratulation !");
+        }
+    }
+
+    /**
+     * Play the replay on the current level, one tick at a time, then check the final board.
+     */
+    private void playReplay() {
+        for (var command : replay.getCommands()) {
+            if(currentLevel.isFinished()) break;
+            try {
+                Thread.sleep(REPLAY_TICK_DELAY);
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            record(command);
+            command.apply(currentLevel);
+            DisplayComponent.publishFrame();
+        }
+
+        var ok = currentLevel.getHash() == replay.getHash();
+        System.out.println("Replay " + (ok ? "matches" : "does not match") + " the recorded board");
+        replay = null;
+    }
+
+    /**
+     * Record a tick of the current level, if the session is recorded.
+     * @param command the command of the tick.
+     */
+    private void record(Replay.Command command) {
+        tickRecorded = true;
+        if(recorder != null) recorder.record(command);
+    }
+
+    /**
+     * Save the replay of the current level, if the session is recorded.
+     */
+    private void finishRecording() {
+        if(recorder == null) return;
+
+        var name = getCurrentLevelName().replaceFirst("\\.csv$", "") + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".replay";
+        var path = Path.of(recordingFolder, name);
+        try {
+            recorder.finish(currentLevel).write(path);
+            System.out.println("Replay saved at " + path);
+        } catch (IOException err) {
+            System.out.println("Error while saving the replay...");
+        }
+        recorder = null;
+    }
+
+    /**
+     * Record the sessions of the next levels in a folder, one replay file per level played.
+     * @param folder the folder of the replays.
+     */
+    public void setRecordingFolder(String folder) {
+        recordingFolder = Objects.requireNonNull(folder);
+    }
+
+    /**
+     * Play a replay at the start of the game, on its level and with its starting rules.
+     * @param replay the replay to play.
+     */
+    public void setReplay(Replay replay) {
+        this.replay = Objects.requireNonNull(replay);
+        levelFiles = List.of(replay.getLevelFile());
+        startingRule.clear();
+        startingRule.addAll(replay.getStartingRules());
+    }
+
+    /**
+     * Return the level of a file, loaded in the background if it was preloaded,
+     * and start preloading the levels following the current one.
+     * @param file the level file.
+     * @return the level, in its initial state.
+     */
+    private Level takeLevel(File file) {
+        Level level = null;
+        var future = preloaded.remove(file);
+        if(future != null) {
+            try {
+                level = future.get();
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException err) {
+                System.out.println("Preloading of " + file.getName() + " failed");
+            }
+        }
+        if(level == null) {
+            level = new Level(file, startingRule);
+        }
+
+        preloadAfter(index);
+        return level;
+    }
+
+    /**
+     * Load the levels following the specified one in the background, and forget the other preloaded levels.
+     * @param current the index of the current level.
+     */
+    private void preloadAfter(int current) {
+        var next = new ArrayList<File>();
+        for (int i = current + 1; i <= current + PRELOADED_LEVELS && i < levelFiles.size(); i++) {
+            next.add(levelFiles.get(i));
+        }
+
+        preloaded.entrySet().removeIf(entry -> {
+            if(next.contains(entry.getKey())) return false;
+            entry.getValue().cancel(false);
+            return true;
+        });
+        for (var file : next) {
+            preloaded.computeIfAbsent(file, key -> preloader.submit(() -> new Level(key, startingRule)));
         }
     }
 
@@ -146,28 +328,108 @@ public final class LevelManager {
      * Quit the game.
      */
     public void quit() {
+        finishRecording();
+        preloader.shutdownNow();
         context.exit(0);
     }
 
     /**
-     * Reload the current level.
+     * Reload the current level from its initial state kept in memory.
      */
     public void reload() {
-        currentLevel = new Level(currentLevelFile);
+        record(Replay.Command.RESET);
+        currentLevel.reset();
+    }
+
+    /**
+     * Set the number of moves which can be undone in a level.
+     * @param steps the maximum number of moves kept in the undo history.
+     */
+    public void setUndoSteps(int steps) {
+        undoSteps = steps;
+    }
+
+    /**
+     * Undo the last move in the current level.
+     */
+    public void undo() {
+        record(Replay.Command.UNDO);
+        currentLevel.undo();
+    }
+
+    /**
+     * Redo the last undone move in the current level.
+     */
+    public void redo() {
+        record(Replay.Command.REDO);
+        currentLevel.redo();
+    }
+
+    /**
+     * Select the next save slot, going back to the first one after the last.
+     */
+    public void nextSaveSlot() {
+        saveSlot = (saveSlot + 1) % SaveLoader.SLOTS;
+        System.out.println("Save slot " + saveSlot + " selected");
     }
 
     /**
-     * Save the current game state.
+     * Save the current game state in the selected slot.
      */
     public void save() {
-        new SaveLoader().save(currentLevel);
+        var saveLoader = new SaveLoader();
+        try {
+            saveLoader.save(currentLevel, getCurrentLevelName(), saveSlot);
+            System.out.println("Game saved at " + saveLoader.getPath() + " in slot " + saveSlot + "...");
+        } catch (IOException err) {
+            System.out.println("Error while saving...");
+        }
     }
 
     /**
-     * Load a game state from res/saveFile.sav.
+     * Load the game state of the selected slot, starting the saved level if it is not the current one.
      */
     public void load() {
-        new SaveLoader().load(currentLevel);
+        var saveLoader = new SaveLoader();
+        SaveLoader.Save save;
+        try {
+            save = saveLoader.load(saveSlot);
+        } catch (IOException err) {
+            System.out.println("Error while loading, file is invalid");
+            return;
+        }
+        if(save == null) {
+            System.out.println("Save slot " + saveSlot + " of " + saveLoader.getPath() + " is empty...");
+            return;
+        }
+        System.out.println("Game loaded from " + saveLoader.getPath() + " slot " + saveSlot + "...");
+
+        if(save.levelName().equals(getCurrentLevelName())) {
+            if(recorder != null) {
+                System.out.println("Recording of " + getCurrentLevelName() + " stopped, a saved game was loaded");
+                recorder = null;
+            }
+            restore(save);
+            return;
+        }
+        if(levelFiles.stream().noneMatch(file -> file.getName().equals(save.levelName()))) {
+            System.out.println("Level " + save.levelName() + " is not available...");
+            return;
+        }
+        pendingLoad = save;
+        skipAtLevel(save.levelName());
+    }
+
+    /**
+     * Restore a saved game state in the current level.
+     * @param save the saved game state, of the current level.
+     */
+    private void restore(SaveLoader.Save save) {
+        if(!save.state().getSize().equals(currentLevel.getSize())) {
+            System.out.println("Saved board does not match level " + save.levelName() + "...");
+            return;
+        }
+        currentLevel.restore(save.state());
     }
 
     /**
@@ -0,0 +1,108 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.block.identifiers.RealObject;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Living blocks of a level ordered by priority. Each priority has its own bucket, so adding a block, removing it
+ * or changing its identity costs a constant time, instead of sorting or shifting the whole level.
+ */
+class LiveElements {
+    // Priorities go from -(number of real objects - 1) for real objects to 1 for texts.
+    private static final int OFFSET = RealObject.values().length - 1;
+
+    private final List<BlockBucket> buckets = new ArrayList<>();
+    private final List<Block> view = new View();
+    private int size;
+
+    LiveElements() {
+        for (int i = 0; i <= OFFSET + 1; i++) {
+            buckets.add(new BlockBucket());
+        }
+    }
+
+    /**
+     * Add a block after the blocks of lower or equal priority.
+     * @param block the block to add.
+     */
+    void add(Block block) {
+        var bucket = buckets.get(block.getPriority() + OFFSET);
+        var before = bucket.size();
+        bucket.add(block);
+        size += bucket.size() - before;
+    }
+
+    /**
+     * Remove a block which was stored with the given priority.
+     * @param block the block to remove.
+     * @param priority the priority of the block when it was added, it may have changed identity since.
+     */
+    void remove(Block block, int priority) {
+        if(buckets.get(priority + OFFSET).remove(block)) size--;
+    }
+
+    /**
+     * Remove every block.
+     */
+    void clear() {
+        buckets.forEach(BlockBucket::clear);
+        size = 0;
+    }
+
+    /**
+     * Return an unmodifiable view of the living blocks, ordered by priority.
+     * @return the living blocks.
+     */
+    List<Block> view() {
+        return view;
+    }
+
+    /**
+     * Concatenation of the buckets, from the lowest priority to the highest.
+     */
+    private class View extends AbstractList<Block> {
+        @Override
+        public Block get(int index) {
+            if(index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            for (var bucket : buckets) {
+                if(index < bucket.size()) return bucket.view().get(index);
+                index -= bucket.size();
+            }
+            throw new IllegalStateException("inconsistent size");
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Block> iterator() {
+            return new Iterator<>() {
+                private int bucket;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    while(bucket < buckets.size() && index >= buckets.get(bucket).size()) {
+                        bucket++;
+                        index = 0;
+                    }
+                    return bucket < buckets.size();
+                }
+
+                @Override
+                public Block next() {
+                    if(!hasNext()) throw new NoSuchElementException();
+                    return buckets.get(bucket).view().get(index++);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package baba.level;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures of the game loop of a level: the latency between an input and the publication of the frame it caused,
+ * and the time and CPU spent by the loop thread waiting for inputs.
+ */
+final class LoopMetrics {
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private long frames;
+    private long totalLatency;
+    private long maxLatency;
+    private long idleTime;
+    private long idleCpu;
+    private long waitStart;
+    private long waitCpuStart;
+    private long inputTime;
+
+    /**
+     * Signal that the loop starts waiting for an input.
+     */
+    void waitStarted() {
+        waitStart = System.nanoTime();
+        waitCpuStart = cpuTime();
+    }
+
+    /**
+     * Signal that the loop received an input.
+     */
+    void inputReceived() {
+        inputTime = System.nanoTime();
+        idleTime += inputTime - waitStart;
+        idleCpu += cpuTime() - waitCpuStart;
+    }
+
+    /**
+     * Signal that the frame following the last input is published to the render thread.
+     */
+    void framePublished() {
+        var latency = System.nanoTime() - inputTime;
+        frames++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    private static long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    @Override
+    public String toString() {
+        var averageLatency = frames == 0 ? 0 : totalLatency / frames;
+        var idleLoad = idleTime == 0 ? 0 : 100.0 * idleCpu / idleTime;
+        return String.format("%d frames, latency %.2f ms average, %.2f ms max, idle %.1f s using %.0f ms CPU (%.2f%%)",
+                frames, averageLatency / 1e6, maxLatency / 1e6, idleTime / 1e9, idleCpu / 1e6, idleLoad);
+    }
+}
@@ -0,0 +1,281 @@
+package baba.level;
+
+import baba.rules.Rule;
+import baba.utils.Direction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Recorded session of a level: the level file, the starting rules, the command of each tick and the hash
+ * of the final board. Playing the commands again from the level file always leads to the same board.
+ * <p>
+ * A replay is saved as text, one command per character:
+ * <pre>
+ * BABA-REPLAY 1
+ * level res/levels/level-1.csv
+ * rule TEXT IS PUSH
+ * hash 1f3a...
+ * ticks RRRUUZLLNX
+ * </pre>
+ */
+public final class Replay {
+    private static final String HEADER = "BABA-REPLAY 1";
+
+    private final String levelPath;
+    private final List<Rule> startingRules;
+    private final String ticks;
+    private final long hash;
+
+    /**
+     * Command of a tick of the game loop. Every tick advances the level, so the ticks without a move
+     * are recorded as NONE: the level may not have settled at the end of the previous tick.
+     */
+    public enum Command {
+        NONE('N'),
+        UP('U'),
+        DOWN('D'),
+        LEFT('L'),
+        RIGHT('R'),
+        UNDO('Z'),
+        REDO('Y'),
+        RESET('X');
+
+        private final char code;
+
+        Command(char code) {
+            this.code = code;
+        }
+
+        /**
+         * Return the command moving in a direction.
+         * @param direction the direction of the move.
+         * @return the command of the move, NONE if the player did not move.
+         */
+        public static Command of(Direction direction) {
+            return switch (direction) {
+                case UP -> UP;
+                case DOWN -> DOWN;
+                case LEFT -> LEFT;
+                case RIGHT -> RIGHT;
+                case NONE -> NONE;
+            };
+        }
+
+        private static Command of(char code) {
+            for (var command : values()) {
+                if(command.code == code) return command;
+            }
+            throw new IllegalArgumentException("unknown replay command " + code);
+        }
+
+        /**
+         * Run the tick of this command on a level, as the game loop does.
+         * @param level the level played.
+         */
+        public void apply(Level level) {
+            var direction = Direction.NONE;
+            switch (this) {
+                case UP -> direction = Direction.UP;
+                case DOWN -> direction = Direction.DOWN;
+                case LEFT -> direction = Direction.LEFT;
+                case RIGHT -> direction = Direction.RIGHT;
+                case UNDO -> level.undo();
+                case REDO -> level.redo();
+                case RESET -> level.reset();
+            }
+            level.advance(direction);
+        }
+    }
+
+    private Replay(String levelPath, List<Rule> startingRules, String ticks, long hash) {
+        this.levelPath = levelPath;
+        this.startingRules = startingRules;
+        this.ticks = ticks;
+        this.hash = hash;
+    }
+
+    /**
+     * Return the level file of this replay.
+     * @return the level file.
+     */
+    public File getLevelFile() {
+        return new File(levelPath);
+    }
+
+    /**
+     * Return the starting rules of this replay.
+     * @return the rules applied in addition to the rules written on the board.
+     */
+    public List<Rule> getStartingRules() {
+        return startingRules;
+    }
+
+    /**
+     * Return the commands of this replay.
+     * @return the command of each tick.
+     */
+    public List<Command> getCommands() {
+        return ticks.chars().mapToObj(code -> Command.of((char) code)).toList();
+    }
+
+    /**
+     * Return the hash of the board at the end of the recorded session.
+     * @return the expected final hash.
+     * @see Level#getHash()
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Create a level in the state in which the recorded session started.
+     * @return the level, ready for the first tick.
+     */
+    public Level start() {
+        var level = new Level(getLevelFile(), startingRules);
+        level.advance(Direction.NONE);
+        return level;
+    }
+
+    /**
+     * Play this replay without display, as fast as possible.
+     * @return the level at the end of the replay.
+     */
+    public Level play() {
+        var level = start();
+        for (int i = 0; i < ticks.length(); i++) {
+            Command.of(ticks.charAt(i)).apply(level);
+        }
+        return level;
+    }
+
+    /**
+     * Save this replay.
+     * @param path the replay file.
+     */
+    public void write(Path path) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add(HEADER);
+        lines.add("level " + levelPath);
+        for (var rule : startingRules) {
+            lines.add("rule " + String.join(" ", rule.getTextElements().stream().map(Object::toString).toList()));
+        }
+        lines.add("hash " + HexFormat.of().toHexDigits(hash));
+        lines.add("ticks " + ticks);
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a replay.
+     * @param path the replay file.
+     * @return the replay.
+     */
+    public static Replay read(Path path) throws IOException {
+        var lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if(lines.isEmpty() || !lines.get(0).equals(HEADER)) throw new IOException("not a replay file " + path);
+
+        String levelPath = null;
+        var rules = new ArrayList<Rule>();
+        Long hash = null;
+        var ticks = "";
+        for (var line : lines.subList(1, lines.size())) {
+            var separator = line.indexOf(' ');
+            var key = separator < 0 ? line : line.substring(0, separator);
+            var value = separator < 0 ? "" : line.substring(separator + 1);
+            switch (key) {
+                case "level" -> levelPath = value;
+                case "rule" -> rules.add(new Rule(Arrays.asList(value.split(" "))));
+                case "hash" -> hash = parseHash(value);
+                case "ticks" -> ticks = value;
+                default -> throw new IOException("invalid replay line " + line);
+            }
+        }
+        if(levelPath == null || hash == null) throw new IOException("incomplete replay file " + path);
+
+        var replay = new Replay(levelPath, List.copyOf(rules), ticks, hash);
+        try {
+            replay.getCommands(); // Reject unknown commands now rather than in the middle of a replay.
+        } catch (IllegalArgumentException err) {
+            throw new IOException(err.getMessage(), err);
+        }
+        return replay;
+    }
+
+    private static long parseHash(String value) throws IOException {
+        try {
+            return HexFormat.fromHexDigitsToLong(value);
+        } catch (IllegalArgumentException err) {
+            throw new IOException("invalid replay hash " + value, err);
+        }
+    }
+
+    /**
+     * Record the ticks of a session.
+     */
+    public static final class Recorder {
+        private final String levelPath;
+        private final List<Rule> startingRules;
+        private final StringBuilder ticks = new StringBuilder();
+
+        /**
+         * Start recording a session.
+         * @param levelFile the level file played.
+         * @param startingRules the rules applied in addition to the rules written on the board.
+         */
+        public Recorder(File levelFile, List<Rule> startingRules) {
+            this.levelPath = levelFile.getPath();
+            this.startingRules = startingRules.stream().map(Rule::clone).toList();
+        }
+
+        /**
+         * Record a tick.
+         * @param command the command of the tick.
+         */
+        public void record(Command command) {
+            ticks.append(command.code);
+        }
+
+        /**
+         * End the recording.
+         * @param level the level at the end of the session.
+         * @return the replay of the session.
+         */
+        public Replay finish(Level level) {
+            return new Replay(levelPath, startingRules, ticks.toString(), level.getHash());
+        }
+    }
+
+    /**
+     * Play replays without display and check their final board.
+     * Usage: Replay FILE...
+     * @param args the replay files.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            throw new IllegalArgumentException("command require a replay file");
+        }
+
+        var failures = 0;
+        for (var arg : args) {
+            var replay = read(Path.of(arg));
+            var start = System.nanoTime();
+            var level = replay.play();
+            var elapsed = System.nanoTime() - start;
+
+            var ok = level.getHash() == replay.getHash();
+            if(!ok) failures++;
+            System.out.printf("%s %s: %d ticks in %.2f ms, hash %s%s%n", ok ? "OK" : "MISMATCH", arg,
+                    replay.ticks.length(), elapsed / 1e6, HexFormat.of().toHexDigits(level.getHash()),
+                    ok ? "" : " expected " + HexFormat.of().toHexDigits(replay.getHash()));
+        }
+        if(failures > 0) System.exit(1);
+    }
+}
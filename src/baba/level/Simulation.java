@@ -0,0 +1,69 @@
+package baba.level;
+
+import baba.rules.Rule;
+import baba.utils.Direction;
+
+import java.io.File;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Headless game engine. Load a level and step it with explicit directions, without any display
+ * or input library; used for simulations, tests and benchmarks.
+ */
+public final class Simulation {
+    private final Level level;
+    private int steps;
+
+    /**
+     * Outcome of a simulation step.
+     */
+    public enum Outcome {
+        WON,
+        DEFEATED,
+        CHANGED,
+        UNCHANGED
+    }
+
+    /**
+     * Load a level and recognize the rules written on its board.
+     * @param file the level file to load.
+     * @param startingRules the rules applied in addition to the rules written on the board.
+     */
+    public Simulation(File file, List<Rule> startingRules) {
+        this.level = new Level(Objects.requireNonNull(file), startingRules);
+        level.advance(Direction.NONE);
+    }
+
+    /**
+     * Advance the simulation by one move, as a tick of the game loop does.
+     * @param direction the direction in which the blocks with the property YOU move.
+     * @return the outcome of the step.
+     */
+    public Outcome step(Direction direction) {
+        if(level.isWon()) return Outcome.WON;
+
+        steps++;
+        var changed = level.advance(direction);
+
+        if(level.isWon()) return Outcome.WON;
+        if(level.isDefeated()) return Outcome.DEFEATED;
+        return changed ? Outcome.CHANGED : Outcome.UNCHANGED;
+    }
+
+    /**
+     * Return the simulated level.
+     * @return the simulated level.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Return the number of steps simulated since the level was loaded.
+     * @return the number of steps.
+     */
+    public int getSteps() {
+        return steps;
+    }
+}
@@ -0,0 +1,121 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.utils.Vector2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cell-bucketed index of the living blocks of a level. Each cell keeps its blocks ordered by priority,
+ * so a position lookup only costs the number of blocks in that cell.
+ */
+class SpatialIndex {
+    private final Vector2 size;
+    // A cell is only allocated when a block enters it.
+    private final List<ArrayList<Block>> cells;
+
+    SpatialIndex(Vector2 size) {
+        this.size = size;
+        this.cells = new ArrayList<>(Collections.nCopies(size.x() * size.y(), null));
+    }
+
+    /**
+     * Return the index of the cell at the given position, or -1 if the position is not in the board.
+     * @param position the position of the cell.
+     * @return the index of the cell.
+     */
+    private int cellOf(Vector2 position) {
+        if(position.x() < 0 || position.x() >= size.x() || position.y() < 0 || position.y() >= size.y())
+            return -1;
+        return position.y() * size.x() + position.x();
+    }
+
+    /**
+     * Add a block to the cell at its position, after the blocks of lower or equal priority.
+     * @param block the block to add.
+     */
+    void add(Block block) {
+        add(block, block.getPosition());
+    }
+
+    private void add(Block block, Vector2 position) {
+        var index = cellOf(position);
+        if(index < 0) return;
+
+        var cell = cells.get(index);
+        if(cell == null) {
+            cell = new ArrayList<>(2);
+            cells.set(index, cell);
+        }
+
+        var priority = block.getPriority();
+        var i = cell.size();
+        while(i > 0 && cell.get(i - 1).getPriority() > priority) i--;
+        cell.add(i, block);
+    }
+
+    /**
+     * Remove a block from the cell at its position.
+     * @param block the block to remove.
+     */
+    void remove(Block block) {
+        remove(block, block.getPosition());
+    }
+
+    private void remove(Block block, Vector2 position) {
+        var index = cellOf(position);
+        if(index < 0 || cells.get(index) == null) return;
+
+        // Blocks are compared by identity, Block.equals only compares identifiers.
+        var cell = cells.get(index);
+        for(int i = 0; i < cell.size(); i++) {
+            if(cell.get(i) == block) {
+                cell.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Move a block from its previous position to its current position.
+     * @param block the block which moved.
+     * @param previous the position of the block before moving.
+     */
+    void move(Block block, Vector2 previous) {
+        remove(block, previous);
+        add(block);
+    }
+
+    /**
+     * Remove every block from this index.
+     */
+    void clear() {
+        for(var cell : cells) {
+            if(cell != null) cell.clear();
+        }
+    }
+
+    /**
+     * Return the blocks at the given position, ordered by priority.
+     * @param position the position of the cell.
+     * @return an unmodifiable view of the blocks at the given position.
+     */
+    List<Block> get(Vector2 position) {
+        return get(position.x(), position.y());
+    }
+
+    /**
+     * Return the blocks in the given cell, ordered by priority.
+     * @param x the column of the cell.
+     * @param y the line of the cell.
+     * @return an unmodifiable view of the blocks in the given cell.
+     */
+    List<Block> get(int x, int y) {
+        if(x < 0 || x >= size.x() || y < 0 || y >= size.y()) return Collections.emptyList();
+        var cell = cells.get(y * size.x() + x);
+        if(cell == null) return Collections.emptyList();
+        return Collections.unmodifiableList(cell);
+    }
+}
@@ -0,0 +1,143 @@
+package baba.level;
+
+import baba.block.BlockID;
+
+import java.util.Arrays;
+
+/**
+ * Zobrist hash of a set of blocks: the exclusive or of a random key for each (identifier, position, state)
+ * of the blocks. Adding or removing a block costs O(1), whatever the size of the board.
+ * The keys are derived from the block attributes with a mixing function instead of being stored in a table,
+ * so that boards of any size can be hashed. Identical blocks stacked in a cell get the keys of their
+ * occurrences 0, 1, 2... so that they do not cancel out; a block alone has the key of its occurrence 0.
+ */
+class ZobristHash {
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Number of blocks sharing the same attributes, in an open addressing table with linear probing; a count of 0
+    // is a free slot. Blocks are added and removed at each move, so the table avoids boxing the attributes.
+    private long[] attributes = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int used;
+    private long value;
+
+    private static long attributes(BlockID id, int x, int y, boolean dead) {
+        return (long) BlockID.indexOf(id) << 49 | (dead ? 1L << 48 : 0) | (long) x << 24 | y & 0xFFFFFF;
+    }
+
+    private static long key(long block, int occurrence) {
+        return BoardState.mix(block * 0x9E3779B97F4A7C15L ^ SEED ^ occurrence * 0xD1B54A32D192ED03L);
+    }
+
+    /**
+     * Return the key of a block.
+     * @param id the identifier of the block.
+     * @param x the column of the block.
+     * @param y the line of the block.
+     * @param dead the state of the block.
+     * @param occurrence the number of identical blocks with the same attributes before this one.
+     * @return the random key of the block attributes.
+     */
+    static long key(BlockID id, int x, int y, boolean dead, int occurrence) {
+        return key(attributes(id, x, y, dead), occurrence);
+    }
+
+    /**
+     * Add a block to the hash.
+     * @param id the identifier of the block.
+     * @param x the column of the block.
+     * @param y the line of the block.
+     * @param dead the state of the block.
+     */
+    void add(BlockID id, int x, int y, boolean dead) {
+        var block = attributes(id, x, y, dead);
+        var slot = slotOf(block);
+        if(counts[slot] == 0) {
+            attributes[slot] = block;
+            used++;
+        }
+        value ^= key(block, counts[slot]++);
+        if(used * 2 > counts.length) grow();
+    }
+
+    /**
+     * Remove a block from the hash.
+     * @param id the identifier of the block.
+     * @param x the column of the block.
+     * @param y the line of the block.
+     * @param dead the state of the block.
+     */
+    void remove(BlockID id, int x, int y, boolean dead) {
+        var block = attributes(id, x, y, dead);
+        var slot = slotOf(block);
+        if(counts[slot] == 0) return;
+
+        value ^= key(block, --counts[slot]);
+        if(counts[slot] == 0) {
+            used--;
+            release(slot);
+        }
+    }
+
+    /**
+     * Reset the hash to the hash of an empty board.
+     */
+    void clear() {
+        Arrays.fill(counts, 0);
+        used = 0;
+        value = 0;
+    }
+
+    /**
+     * Return the slot of the given attributes, or the free slot where they would be added.
+     */
+    private int slotOf(long block) {
+        var mask = counts.length - 1;
+        var slot = (int) BoardState.mix(block) & mask;
+        while(counts[slot] != 0 && attributes[slot] != block) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Free a slot, moving back the following entries which could not be stored in their own slot.
+     */
+    private void release(int slot) {
+        var mask = counts.length - 1;
+        var next = (slot + 1) & mask;
+        while(counts[next] != 0) {
+            var home = (int) BoardState.mix(attributes[next]) & mask;
+            // The entry can fill the free slot if its home is not between the free slot and itself.
+            if(((next - home) & mask) >= ((next - slot) & mask)) {
+                attributes[slot] = attributes[next];
+                counts[slot] = counts[next];
+                counts[next] = 0;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        var oldAttributes = attributes;
+        var oldCounts = counts;
+        attributes = new long[oldCounts.length * 2];
+        counts = new int[oldCounts.length * 2];
+        for (int i = 0; i < oldCounts.length; i++) {
+            if(oldCounts[i] == 0) continue;
+            var slot = slotOf(oldAttributes[i]);
+            attributes[slot] = oldAttributes[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+
+    /**
+     * Return the value of the hash.
+     * @return the hash of the blocks.
+     */
+    long value() {
+        return value;
+    }
+}
@@ -1,8 +1,11 @@
 package baba.main;
 
 import baba.level.LevelManager;
+import baba.level.Replay;
 import baba.rules.Rule;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.function.Function;
 
 public final class Main {
@@ -34,6 +37,31 @@ public final class Main {
                     LevelManager.getInstance().setStartingFile(args[i + 1]);
                     i++;
                 }
+                case "--undo" -> {
+                    if (args.length - i <= 1) {
+                        throw new IllegalArgumentException("command require a number of moves");
+                    }
+                    LevelManager.getInstance().setUndoSteps(Integer.parseInt(args[i + 1]));
+                    i++;
+                }
+                case "--record" -> {
+                    if (args.length - i <= 1) {
+                        throw new IllegalArgumentException("command require a folder path");
+                    }
+                    LevelManager.getInstance().setRecordingFolder(args[i + 1]);
+                    i++;
+                }
+                case "--replay" -> {
+                    if (args.length - i <= 1) {
+                        throw new IllegalArgumentException("command require a replay file");
+                    }
+                    try {
+                        LevelManager.getInstance().setReplay(Replay.read(Path.of(args[i + 1])));
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("invalid replay file " + args[i + 1], e);
+                    }
+                    i++;
+                }
                 case "--levels" -> {
                     if (args.length - i <= 1) {
                         throw new IllegalArgumentException("command require a folder path");
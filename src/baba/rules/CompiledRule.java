@@ -0,0 +1,151 @@
+package baba.rules;
+
+import baba.block.Text;
+import baba.block.identifiers.Group;
+import baba.block.identifiers.Noun;
+import baba.block.identifiers.Operator;
+import baba.block.identifiers.Property;
+import baba.level.Level;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable, pre-validated form of a rule containing no AND operator.
+ * Simple rules of three elements are evaluated directly, longer ones are collapsed operator by operator.
+ */
+public final class CompiledRule {
+    private final List<Text> elements;
+    private final EnumSet<Operator> operators = EnumSet.noneOf(Operator.class);
+
+    private CompiledRule(List<Text> elements) {
+        this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+        for (Text text : elements) {
+            if(text instanceof Operator operator) operators.add(operator);
+        }
+    }
+
+    /**
+     * Compile a rule with no AND operator.
+     * @param elements the elements of the rule.
+     * @return the compiled rule, or null if the rule can never have any effect.
+     */
+    static CompiledRule compile(List<Text> elements) {
+        var rule = new CompiledRule(elements);
+
+        // Only IS and HAS change the level, ON only selects one of its operands.
+        if(!rule.operators.contains(Operator.IS) && !rule.operators.contains(Operator.HAS)) return null;
+        if(rule.isSimple() && !isOperandValid(rule.operator(), rule.left(), rule.right())) return null;
+        return rule;
+    }
+
+    /**
+     * Return true if the operands of a simple rule have a type the operator can evaluate.
+     * @param operator the operator of the rule.
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return true if the evaluation can have an effect.
+     */
+    private static boolean isOperandValid(Operator operator, Text left, Text right) {
+        return switch (operator) {
+            case IS -> (left instanceof Group || left instanceof Noun)
+                    && (right instanceof Noun || right instanceof Property);
+            case HAS -> left instanceof Noun && right instanceof Noun;
+            default -> false;
+        };
+    }
+
+    /**
+     * Return true if this rule is made of an operand, an operator and an operand.
+     * @return true if this rule is simple.
+     */
+    boolean isSimple() {
+        return elements.size() == 3 && elements.get(1) instanceof Operator;
+    }
+
+    private Text left() {
+        return elements.get(0);
+    }
+
+    private Operator operator() {
+        return (Operator) elements.get(1);
+    }
+
+    private Text right() {
+        return elements.get(2);
+    }
+
+    /**
+     * Return true if this rule contains the specified operator.
+     * @param operator the operator to check.
+     * @return true if the operator is in this rule.
+     */
+    boolean contains(Operator operator) {
+        return operators.contains(operator);
+    }
+
+    /**
+     * Return the elements of this rule.
+     * @return an unmodifiable list of the elements.
+     */
+    List<Text> getElements() {
+        return elements;
+    }
+
+    /**
+     * Evaluate a simple rule.
+     * @param level the level on which the rule is applied.
+     */
+    void evaluate(Level level) {
+        operator().getOperation().eval(level, left(), right());
+    }
+
+    /**
+     * Collapse the elements around each occurrence of the operator and the operator itself,
+     * and replace them with the result of the corresponding operation.
+     * @param level the level on which the rule is applied.
+     * @param textElem the elements of the rule left by the previous operators.
+     * @param operator the operator to evaluate.
+     * @return the elements of the rule after the evaluation.
+     */
+    static List<Text> evaluate(Level level, List<Text> textElem, Operator operator) {
+        var newRule = new ArrayList<>(textElem);
+
+        for (int i = 0; i < textElem.size(); i++) {
+            if(textElem.get(i) == operator) {
+                var previous = i > 0 ? textElem.get(i - 1) : null;
+                var next = i < textElem.size() - 1 ? textElem.get(i + 1) : null;
+
+                newRule.remove(previous);
+                newRule.remove(next);
+                var currentIndex = newRule.indexOf(operator);
+                newRule.remove(operator);
+
+                if(currentIndex >= 0 && currentIndex < textElem.size())
+                    newRule.add(currentIndex, operator.getOperation().eval(level, previous, next));
+            }
+        }
+
+        return newRule;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompiledRule rule)) return false;
+        return elements.equals(rule.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(elements);
+    }
+
+    @Override
+    public String toString() {
+        return elements.toString();
+    }
+}
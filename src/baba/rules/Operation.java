@@ -4,8 +4,7 @@ import baba.block.*;
 import baba.block.identifiers.Group;
 import baba.block.identifiers.Noun;
 import baba.block.identifiers.Property;
-import baba.block.identifiers.RealObject;
-import baba.level.LevelManager;
+import baba.level.Level;
 
 import java.util.Collections;
 import java.util.stream.Collectors;
@@ -16,11 +15,12 @@ import java.util.stream.Collectors;
 public interface Operation {
     /**
      * Evaluate an operation between two value and return the result.
+     * @param level the level on which the operation is evaluated.
      * @param leftOperand the left value of the operation.
      * @param rightOperand the right value of the operation.
      * @return the result of the operation.
      */
-    Text eval(Text leftOperand, Text rightOperand);
+    Text eval(Level level, Text leftOperand, Text rightOperand);
 
     /**
      * Check the dead blocks with the same identifier as the left text element
@@ -28,20 +28,18 @@ public interface Operation {
      */
     class Has implements Operation {
         @Override
-        public Text eval(Text left, Text right) {
+        public Text eval(Level level, Text left, Text right) {
             if(!isOperandValid(left, right))
                 return right;
 
-            var level = LevelManager.getInstance().getCurrentLevel();
-
             BlockID realObj = null;
             if(left instanceof Noun noun)
                 realObj = noun.getLinkedObject();
             var dead = level.getDead();
 
             for(Block block:dead) {
-                RealObject deadTag = (RealObject) block.getID();
-                if(realObj == deadTag) {
+                // Dead text blocks can never match the linked object.
+                if(realObj == block.getID()) {
                     block.copy(new Block(((Noun) right).getLinkedObject()));
                 }
             }
@@ -62,16 +60,16 @@ public interface Operation {
      */
     class Is implements Operation {
         @Override
-        public Text eval(Text left, Text right) {
+        public Text eval(Level level, Text left, Text right) {
             if(!isOperandValid(left, right))
                 return right;
 
             if(left instanceof Group group) {
                 for (BlockID block:group.getElements()) {
                     if(right instanceof Noun)
-                        evalForNoun(block, right);
+                        evalForNoun(level, block, right);
                     else
-                        evalForProperty(block, right);
+                        evalForProperty(level, block, right);
                 }
             }
 
@@ -80,10 +78,10 @@ public interface Operation {
                 leftLinkedObj = noun.getLinkedObject();
 
             if(right instanceof Noun) {
-                evalForNoun(leftLinkedObj, ((Noun) right).getLinkedObject());
+                evalForNoun(level, leftLinkedObj, ((Noun) right).getLinkedObject());
             }
             else {
-                evalForProperty(leftLinkedObj, right);
+                evalForProperty(level, leftLinkedObj, right);
             }
 
             return right;
@@ -94,18 +92,14 @@ public interface Operation {
                     && (right instanceof Noun || right instanceof Property);
         }
 
-        private void evalForNoun(BlockID left, BlockID right) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-
-            currentLevel.findByID(left).forEach(block -> {
+        private void evalForNoun(Level level, BlockID left, BlockID right) {
+            level.findByID(left).forEach(block -> {
                 block.copy(new Block(right));
             });
         }
 
-        private void evalForProperty(BlockID left, BlockID right) {
-            var currentLevel = LevelManager.getInstance().getCurrentLevel();
-
-            currentLevel.addPropertyToAll(left, (Property) right);
+        private void evalForProperty(Level level, BlockID left, BlockID right) {
+            level.addPropertyToAll(left, (Property) right);
         }
     }
 
@@ -115,10 +109,9 @@ public interface Operation {
      */
     class On implements Operation {
         @Override
-        public Text eval(Text left, Text right) {
+        public Text eval(Level level, Text left, Text right) {
             if(!(left instanceof Noun) || !(right instanceof Noun)) return right;
 
-            var level = LevelManager.getInstance().getCurrentLevel();
             BlockID leftRealObj;
             BlockID rightRealObj;
             leftRealObj = ((Noun) left).getLinkedObject();
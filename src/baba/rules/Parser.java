@@ -2,127 +2,162 @@ package baba.rules;
 
 import baba.block.identifiers.Operator;
 import baba.block.Text;
+import baba.events.ParseEvent;
+import baba.events.RuleEvaluationEvent;
+import baba.level.Level;
 
 import java.util.*;
 
 /**
- * Handle expression-rule parsing.
+ * Handle expression-rule parsing. Each text sequence is compiled once into rules without AND operator,
+ * the compiled forms are cached so that recurring sequences are not parsed again.
  */
 public class Parser {
-    public void parse(List<Rule> rules) {
-        var operators = Operator.values();
-
-        simplifyRuleWithAnd(rules);
-        for(Operator operator : operators) {
-            for(Rule rule:rules) {
-                evaluateRule(rule, operator);
-            }
+    private static final int CACHE_SIZE = 1024;
+    // Bound of the number of rules a single rule with AND operators can be split into.
+    static final int MAX_AND_COMBINATIONS = 4096;
+
+    private final Level level;
+    private long compilations;
+    private final Map<List<Text>, List<CompiledRule>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Text>, List<CompiledRule>> eldest) {
+            return size() > CACHE_SIZE;
         }
-    }
+    };
 
     /**
-     * Each rule with an AND operator can be simplified into a set of rule containing no AND operator.
-     * @param rules list of rule to be simplified.
+     * Create a parser evaluating rules on the specified level.
+     * @param level the level on which the rules are applied.
      */
-    public void simplifyRuleWithAnd(List<Rule> rules) {
-        var ruleSet = new HashSet<>(splitAndRule(new ArrayList<>(rules)));
-        rules.clear();
-        rules.addAll(ruleSet);
+    public Parser(Level level) {
+        this.level = Objects.requireNonNull(level);
     }
 
     /**
-     * Split rules with AND operator. For each operator in a given rule, two new rules are created.
-     * Keep splitting until no AND operator are present in the specified list.
-     * @param rules the list of rule to be splitted.
-     * @return the list of rule with no AND operators.
+     * Evaluate the specified rules on the level, operator by operator in the order of the enum Operator.
+     * The given rules are not modified.
+     * @param rules the rules to be evaluated.
      */
-    private ArrayList<Rule> splitAndRule(ArrayList<Rule> rules) {
-        var nextRulesIteration = new ArrayList<>(rules);
-
-        for (Rule rule:rules) {
-            var textElem = rule.getTextElements();
-
-            var ruleFromLeftElem = new ArrayList<>(textElem);
-            var ruleFromRightElem = new ArrayList<>(textElem);
+    public void parse(List<Rule> rules) {
+        var event = new ParseEvent();
+        event.begin();
+        var compilations = this.compilations;
+        var compiledRules = new LinkedHashSet<CompiledRule>();
+        for (Rule rule : rules) {
+            compiledRules.addAll(compile(rule));
+        }
 
-            for (int i = 0; i < textElem.size(); i++) {
-                if (textElem.get(i).equals(Operator.AND)) {
-                    var subRule = new SubRule(textElem, i);
-                    var currentIndex = 0;
+        var states = new HashMap<CompiledRule, List<Text>>();
+        for (Operator operator : Operator.values()) {
+            if(operator.getOperation() == null) continue;
 
-                    /* Creating two new rule. */
-                    mergeElementAroundOperator(ruleFromLeftElem, subRule.previous, subRule);
-                    mergeElementAroundOperator(ruleFromRightElem, subRule.next, subRule);
+            for (CompiledRule rule : compiledRules) {
+                if(!rule.contains(operator)) continue;
 
-                    nextRulesIteration.remove(currentIndex);
-                    nextRulesIteration.add(new Rule(ruleFromLeftElem));
-                    nextRulesIteration.add(new Rule(ruleFromRightElem));
-                    break;
+                var evaluation = new RuleEvaluationEvent();
+                evaluation.begin();
+                if(rule.isSimple()) {
+                    rule.evaluate(level);
+                }
+                else {
+                    var elements = states.getOrDefault(rule, rule.getElements());
+                    states.put(rule, CompiledRule.evaluate(level, elements, operator));
+                }
+                if(evaluation.shouldCommit()) {
+                    evaluation.rule = rule.toString();
+                    evaluation.operator = operator.name();
+                    evaluation.commit();
                 }
             }
         }
 
-        if(nextRulesIteration.stream().anyMatch(r -> r.getTextElements().contains(Operator.AND))) {
-            return splitAndRule(nextRulesIteration);
+        if(event.shouldCommit()) {
+            event.compiledRuleCount = compiledRules.size();
+            event.describe(level, this.compilations != compilations);
+            event.commit();
         }
-        return nextRulesIteration;
     }
 
     /**
-     * Collapse the tree specified Text elements and replace it with the a new element.
-     * @param ruleAsArray the current array of text elements representing a rule.
-     * @param newElement the elements to add instead of the previous current and next elements.
-     * @param subRule the sub rule to be removed.
+     * Return the compiled form of a rule, compiling it on first use.
+     * @param rule the rule to be compiled.
+     * @return the rules without AND operator which can have an effect.
      */
-    private void mergeElementAroundOperator(ArrayList<Text> ruleAsArray, Text newElement, SubRule subRule) {
-        int currentIndex;
-
-        ruleAsArray.remove(subRule.previous);
-        ruleAsArray.remove(subRule.next);
-        currentIndex = ruleAsArray.indexOf(subRule.current);
-        ruleAsArray.remove(subRule.current);
-        ruleAsArray.add(currentIndex, newElement);
+    public List<CompiledRule> compile(Rule rule) {
+        var key = List.copyOf(rule.getTextElements());
+        var compiled = cache.get(key);
+        if(compiled != null) return compiled;
+
+        compilations++;
+        var result = new ArrayList<CompiledRule>();
+        for (var elements : splitAndRule(key)) {
+            var compiledRule = CompiledRule.compile(elements);
+            if(compiledRule != null) result.add(compiledRule);
+        }
+
+        compiled = List.copyOf(result);
+        cache.put(key, compiled);
+        return compiled;
     }
 
     /**
-     * Collapse the elements around the operator and the operator itself in the specified rule and
-     * replace it with the result of the corresponding operation.
-     * @param rule the rules to be evaluated.
-     * @param operator the operator to be checked.
+     * Each rule with an AND operator can be simplified into a set of rule containing no AND operator.
+     * @param rules list of rule to be simplified.
      */
-    public void evaluateRule(Rule rule, Operator operator) {
-        var textElem = rule.getTextElements();
-        var newRule = new ArrayList<>(textElem);
-
-        for (int i = 0; i < textElem.size(); i++) {
-            if(textElem.get(i) == operator) {
-                var subRule = new SubRule(textElem, i);
-
-                newRule.remove(subRule.previous);
-                newRule.remove(subRule.next);
-                var currentIndex = newRule.indexOf(subRule.current);
-                newRule.remove(subRule.current);
-
-                if(currentIndex >= 0 && currentIndex < textElem.size())
-                    newRule.add(currentIndex, operator.getOperation().eval(subRule.previous, subRule.next));
-            }
+    public void simplifyRuleWithAnd(List<Rule> rules) {
+        var ruleSet = new LinkedHashSet<Rule>();
+        for (Rule rule : rules) {
+            splitAndRule(rule.getTextElements()).forEach(elements -> ruleSet.add(new Rule(elements)));
         }
-
-        rule.copy(new Rule(newRule));
+        rules.clear();
+        rules.addAll(ruleSet);
     }
 
     /**
-     * Most basic rule entity, composed of three elements.
+     * Split a rule with AND operators in a single pass. The elements joined by AND form a group of
+     * alternatives, the resulting rules are the cartesian product of the groups:
+     * BABA AND ROCK IS PUSH AND STOP gives BABA IS PUSH, BABA IS STOP, ROCK IS PUSH and ROCK IS STOP.
+     * An AND with no element on one of its sides is ignored. A rule which would be split into more than
+     * MAX_AND_COMBINATIONS rules is rejected.
+     * @param elements the elements of the rule to be split.
+     * @return the distinct lists of elements with no AND operator, empty if the rule is rejected.
      */
-    private class SubRule {
-        public Text previous;
-        public Text next;
-        public Text current;
-
-        private SubRule(List<Text> textElem, int i) {
-            previous = i > 0 ? textElem.get(i - 1) : null;
-            next = i < textElem.size() - 1 ? textElem.get(i + 1) : null;
-            current = textElem.get(i);
+    public static List<ArrayList<Text>> splitAndRule(List<Text> elements) {
+        var groups = new ArrayList<List<Text>>();
+        var joined = false;
+        for (Text text : elements) {
+            if(text == Operator.AND) {
+                joined = !groups.isEmpty();
+            }
+            else {
+                if(joined) groups.get(groups.size() - 1).add(text);
+                else groups.add(new ArrayList<>(List.of(text)));
+                joined = false;
+            }
+        }
+
+        var count = 1L;
+        for (var group : groups) {
+            count *= group.size();
+            if(count > MAX_AND_COMBINATIONS) return new ArrayList<>();
+        }
+
+        // Each combination is read as a number whose digits are the indexes of the chosen alternatives.
+        var rules = new LinkedHashSet<ArrayList<Text>>();
+        var choices = new int[groups.size()];
+        for (int n = 0; n < count; n++) {
+            var rule = new ArrayList<Text>(groups.size());
+            for (int i = 0; i < groups.size(); i++) {
+                rule.add(groups.get(i).get(choices[i]));
+            }
+            rules.add(rule);
+
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                if(++choices[i] < groups.get(i).size()) break;
+                choices[i] = 0;
+            }
         }
+        return new ArrayList<>(rules);
     }
 }
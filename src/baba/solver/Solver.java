@@ -0,0 +1,313 @@
+package baba.solver;
+
+import baba.level.BoardState;
+import baba.level.Level;
+import baba.level.Simulation;
+import baba.rules.Rule;
+import baba.utils.Direction;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Breadth-first search over the states of a level, using the game own rules to play every move.
+ * Each depth of the search is explored in parallel with fork-join; visited states are stored
+ * as 128 bits fingerprints in a concurrent map, only the states of the current depth are kept whole.
+ */
+public class Solver {
+    private static final Direction[] MOVES = { Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT };
+    private static final int SPLIT_THRESHOLD = 32;
+
+    private final File file;
+    private final List<Rule> startingRules;
+    private int maxDepth = 200;
+    private Duration timeout = Duration.ofMinutes(1);
+    private long maxMemory = Runtime.getRuntime().maxMemory() * 3 / 4;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Status of a search.
+     */
+    public enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        DEPTH_LIMIT,
+        TIME_LIMIT,
+        MEMORY_LIMIT
+    }
+
+    /**
+     * Result of a search.
+     * @param status how the search ended.
+     * @param moves the shortest sequence of moves winning the level, empty if the level is not solved.
+     * @param explored the number of states explored.
+     * @param elapsed the duration of the search.
+     */
+    public record Result(Status status, List<Direction> moves, long explored, Duration elapsed) {
+        /**
+         * Return the number of states explored per second.
+         * @return the throughput of the search.
+         */
+        public double throughput() {
+            var seconds = elapsed.toNanos() / 1e9;
+            return seconds == 0 ? 0 : explored / seconds;
+        }
+    }
+
+    /**
+     * 128 bits fingerprint of a board state.
+     */
+    private record Fingerprint(long high, long low) {
+        private static Fingerprint of(BoardState state) {
+            return new Fingerprint(state.hash64(0x5851F42D4C957F2DL), state.hash64(0x14057B7EF767814FL));
+        }
+    }
+
+    /**
+     * Visited state, with the state it was reached from and the move leading to it.
+     */
+    private record Visit(Fingerprint parent, Direction move) {}
+
+    /**
+     * Create a solver for a level.
+     * @param file the level file.
+     * @param startingRules the rules applied in addition to the rules written on the board.
+     */
+    public Solver(File file, List<Rule> startingRules) {
+        this.file = Objects.requireNonNull(file);
+        this.startingRules = List.copyOf(startingRules);
+    }
+
+    /**
+     * Set the maximum number of moves of a solution.
+     * @param maxDepth the maximum depth of the search.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Set the maximum duration of the search.
+     * @param timeout the maximum duration.
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = Objects.requireNonNull(timeout);
+    }
+
+    /**
+     * Set the maximum heap used by the search, in bytes.
+     * @param maxMemory the maximum memory used.
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Set the number of threads exploring the states.
+     * @param parallelism the number of threads.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Search the shortest sequence of moves winning the level.
+     * @return the result of the search.
+     */
+    public Result solve() {
+        var start = System.nanoTime();
+        var deadline = start + timeout.toNanos();
+        var root = new Simulation(file, startingRules).getLevel();
+        if(root.isWon()) return new Result(Status.SOLVED, List.of(), 1, Duration.ofNanos(System.nanoTime() - start));
+
+        var initial = root.getState();
+        var search = new Search(deadline);
+        search.visited.put(Fingerprint.of(initial), new Visit(null, null));
+
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            var frontier = List.of(initial);
+            var status = Status.UNSOLVABLE;
+            for (int depth = 0; !frontier.isEmpty(); depth++) {
+                if(depth >= maxDepth) {
+                    status = Status.DEPTH_LIMIT;
+                    break;
+                }
+
+                var next = new ConcurrentLinkedQueue<BoardState>();
+                pool.invoke(search.new Expand(frontier, 0, frontier.size(), next));
+
+                if(search.solution.get() != null) {
+                    status = Status.SOLVED;
+                    break;
+                }
+                if(search.stopped != null) {
+                    status = search.stopped;
+                    break;
+                }
+                frontier = new ArrayList<>(next);
+            }
+
+            var moves = status == Status.SOLVED ? search.path(search.solution.get()) : List.<Direction>of();
+            return new Result(status, moves, search.explored.get(), Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Shared state of a search.
+     */
+    private class Search {
+        private final long deadline;
+        private final ConcurrentHashMap<Fingerprint, Visit> visited = new ConcurrentHashMap<>();
+        private final AtomicReference<Fingerprint> solution = new AtomicReference<>();
+        private final AtomicLong explored = new AtomicLong();
+        private final ThreadLocal<Level> levels =
+                ThreadLocal.withInitial(() -> new Simulation(file, startingRules).getLevel());
+        private volatile Status stopped;
+
+        private Search(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Return the moves leading from the initial state to the specified state.
+         * @param fingerprint the fingerprint of the final state.
+         * @return the list of moves.
+         */
+        private List<Direction> path(Fingerprint fingerprint) {
+            var moves = new ArrayList<Direction>();
+            for (var visit = visited.get(fingerprint); visit.move() != null; visit = visited.get(visit.parent())) {
+                moves.add(visit.move());
+            }
+            Collections.reverse(moves);
+            return moves;
+        }
+
+        /**
+         * Stop the search if a limit is reached.
+         */
+        private boolean checkLimits() {
+            if(stopped != null || solution.get() != null) return true;
+
+            if(System.nanoTime() - deadline > 0) {
+                stopped = Status.TIME_LIMIT;
+            }
+            else {
+                var runtime = Runtime.getRuntime();
+                if(runtime.totalMemory() - runtime.freeMemory() > maxMemory) stopped = Status.MEMORY_LIMIT;
+            }
+            return stopped != null;
+        }
+
+        /**
+         * Expand a part of the states of the current depth.
+         */
+        private class Expand extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final List<BoardState> frontier;
+            private final int from;
+            private final int to;
+            private final ConcurrentLinkedQueue<BoardState> next;
+
+            private Expand(List<BoardState> frontier, int from, int to, ConcurrentLinkedQueue<BoardState> next) {
+                this.frontier = frontier;
+                this.from = from;
+                this.to = to;
+                this.next = next;
+            }
+
+            @Override
+            protected void compute() {
+                if(to - from > SPLIT_THRESHOLD) {
+                    var middle = (from + to) >>> 1;
+                    invokeAll(new Expand(frontier, from, middle, next), new Expand(frontier, middle, to, next));
+                    return;
+                }
+
+                var level = levels.get();
+                var discovered = new ArrayList<BoardState>();
+                for (int i = from; i < to && !checkLimits(); i++) {
+                    var state = frontier.get(i);
+                    var parent = Fingerprint.of(state);
+                    for (Direction move : MOVES) {
+                        level.restore(state);
+                        level.advance(move);
+                        explored.incrementAndGet();
+
+                        var reached = level.getState();
+                        var fingerprint = Fingerprint.of(reached);
+                        if(visited.putIfAbsent(fingerprint, new Visit(parent, move)) != null) continue;
+
+                        if(level.isWon()) {
+                            solution.compareAndSet(null, fingerprint);
+                            return;
+                        }
+                        if(!level.isDefeated()) discovered.add(reached);
+                    }
+                }
+                next.addAll(discovered);
+            }
+        }
+    }
+
+    /**
+     * Solve a level from the command line.
+     * Usage: Solver LEVEL [--depth MOVES] [--time SECONDS] [--memory MEGABYTES] [--threads COUNT]
+     * [--execute RULE RULE RULE].
+     * @param args the arguments.
+     */
+    public static void main(String[] args) {
+        if(args.length < 1) {
+            throw new IllegalArgumentException("command require a level path");
+        }
+
+        var rules = new ArrayList<Rule>();
+        rules.add(new Rule("TEXT", "IS", "PUSH"));
+        var options = new ArrayList<String[]>();
+        for (int i = 1; i < args.length; i++) {
+            if(args[i].equals("--execute")) {
+                if (args.length - i <= 3) {
+                    throw new IllegalArgumentException("Illegal number of argument");
+                }
+                rules.add(new Rule(args[i + 1], args[i + 2], args[i + 3]));
+                i += 3;
+            }
+            else {
+                if(args.length - i <= 1) {
+                    throw new IllegalArgumentException("missing value for " + args[i]);
+                }
+                options.add(new String[] { args[i], args[i + 1] });
+                i++;
+            }
+        }
+
+        var solver = new Solver(new File(args[0]), rules);
+        for (var option : options) {
+            switch (option[0]) {
+                case "--depth" -> solver.setMaxDepth(Integer.parseInt(option[1]));
+                case "--time" -> solver.setTimeout(Duration.ofSeconds(Long.parseLong(option[1])));
+                case "--memory" -> solver.setMaxMemory(Long.parseLong(option[1]) * 1024 * 1024);
+                case "--threads" -> solver.setParallelism(Integer.parseInt(option[1]));
+                default -> throw new IllegalArgumentException("unknown option " + option[0]);
+            }
+        }
+
+        var result = solver.solve();
+        System.out.println(result.status() + " " + result.moves());
+        System.out.printf("%d moves, %d states explored in %d ms (%.0f states/s)%n",
+                result.moves().size(), result.explored(), result.elapsed().toMillis(), result.throughput());
+    }
+}
@@ -1,21 +1,50 @@
 package baba.utils;
 
-import baba.block.Block;
+import baba.block.BlockID;
+import baba.events.RenderEvent;
 import baba.level.Level;
 import baba.level.LevelManager;
 import fr.umlv.zen5.ApplicationContext;
 import fr.umlv.zen5.ScreenInfo;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Allow rendering of the game elements.
+ * Allow rendering of the game elements. The game loop publishes snapshots of the level, which are drawn
+ * by a dedicated render thread; a slow frame never delays the game loop.
  */
 public final class DisplayComponent {
     private static ApplicationContext context;
     private static Vector2 screenSize;
     private static int blockSize; // The size of a block side in pixels.
+    private static final Color BACKGROUND = new Color(9, 9, 9);
+
+    // Snapshot published by the game loop and not drawn yet. The render thread takes it and draws it
+    // while the game loop may publish the next one.
+    private static final AtomicReference<FrameSnapshot> pending = new AtomicReference<>();
+    private static Thread renderThread;
+
+    // State of the game loop: the level published last and its last snapshot.
+    private static Level publishedLevel;
+    private static int generation;
+    private static FrameSnapshot lastSnapshot;
+
+    // State of the render thread: off-screen layers of the level drawn last, for each frame of the animation the
+    // background with the blocks which cannot move, and the whole level.
+    // The cells holding a moving block are left empty in the static layers, and all their blocks are drawn over
+    // them in layer order. A frame is composed once for the snapshot drawn last, then only shown again.
+    private static int drawnGeneration;
+    private static FrameSnapshot drawnSnapshot;
+    private static boolean drawnAnimated;
+    private static int animationFrame;
     private static Vector2 offsetCenter;
+    private static BufferedImage[] staticLayers;
+    private static BufferedImage[] frames;
+    private static boolean[] composedFrames;
 
     private DisplayComponent() {}
 
@@ -24,6 +53,12 @@ public final class DisplayComponent {
         ScreenInfo screenInfo = context.getScreenInfo();
         DisplayComponent.screenSize = new Vector2((int) screenInfo.getWidth(), (int) screenInfo.getHeight());
         initBlockSize();
+        SpriteRegistry.setBlockSize(blockSize);
+        SpriteRegistry.loadAll();
+
+        renderThread = new Thread(DisplayComponent::renderLoop, "render");
+        renderThread.setDaemon(true);
+        renderThread.start();
     }
 
     /**
@@ -46,24 +81,133 @@ public final class DisplayComponent {
     }
 
     /**
-     *  Set the offset of the level so that the rendering is centered.
-     *
-     * @param levelSize the size of the current level.
+     * Publish the current state of the level to the render thread. Only the cells changed since the last frame
+     * are drawn again; nothing is rendered when the level did not change.
      */
-    public static void initOffsetCenter(Vector2 levelSize) {
-        offsetCenter = new Vector2(
-                (screenSize.x() - levelSize.x() * blockSize) / 2,
-                (screenSize.y() - levelSize.y() * blockSize) / 2
-        );
+    public static void publishFrame() {
+        var level = LevelManager.getInstance().getCurrentLevel();
+        if(level != publishedLevel) {
+            publishedLevel = level;
+            generation++;
+        }
+
+        var snapshot = FrameSnapshot.of(level, generation, lastSnapshot);
+        lastSnapshot = snapshot;
+        if(snapshot.isUnchanged()) return;
+
+        // A snapshot which was not drawn yet is replaced, but its changed cells must still be drawn.
+        pending.getAndUpdate(older -> older == null ? snapshot : snapshot.mergeOlder(older));
+        LockSupport.unpark(renderThread);
     }
 
     /**
-     * Render the game.
+     * Draw the published snapshots, and the level drawn last again when the animation moves to its next frame.
+     * When no block of the level drawn last has an animated sprite, the thread sleeps until the next snapshot.
      */
-    public static void render() {
+    private static void renderLoop() {
+        var frameDuration = SpriteRegistry.FRAME_DURATION * 1_000_000L;
+        while(!Thread.currentThread().isInterrupted()) {
+            var now = System.nanoTime();
+            var currentFrame = (int) (now / frameDuration % SpriteRegistry.getFrameCount());
+            var snapshot = pending.getAndSet(null);
+            if(snapshot != null) {
+                animationFrame = currentFrame;
+                render(snapshot);
+            }
+            else if(!drawnAnimated) {
+                LockSupport.park();
+            }
+            else if(currentFrame != animationFrame) {
+                animationFrame = currentFrame;
+                animate();
+            }
+            else {
+                LockSupport.parkNanos(frameDuration - now % frameDuration);
+            }
+        }
+    }
+
+    /**
+     * Render a snapshot of the level.
+     * @param snapshot the snapshot to render.
+     */
+    private static void render(FrameSnapshot snapshot) {
+        var event = new RenderEvent();
+        event.begin();
+        var full = snapshot.isFull();
+        if(snapshot.generation() != drawnGeneration) {
+            initLayers(snapshot);
+            full = true;
+        }
+
+        if(full) {
+            drawStaticLayers(snapshot);
+            Arrays.fill(composedFrames, false);
+            composeFrame(snapshot);
+        }
+        else {
+            // The other frames of the animation are composed again when they are shown.
+            var composed = composedFrames[animationFrame];
+            Arrays.fill(composedFrames, false);
+            drawCells(snapshot);
+            if(composed) composedFrames[animationFrame] = true;
+            else composeFrame(snapshot);
+        }
+
+        drawnSnapshot = snapshot;
+        drawnAnimated = hasAnimatedSprite(snapshot);
+        present();
+
+        if(event.shouldCommit()) {
+            event.blockCount = snapshot.count();
+            event.drawnCells = full ? snapshot.size().x() * snapshot.size().y() : snapshot.dirtyCells().cardinality();
+            event.full = full;
+            event.commit();
+        }
+    }
+
+    /**
+     * Return true if a block of a snapshot has a sprite of several frames.
+     * @param snapshot the snapshot of the level.
+     * @return true if the level changes when the animation moves to another frame.
+     */
+    private static boolean hasAnimatedSprite(FrameSnapshot snapshot) {
+        var seen = new boolean[BlockID.count()];
+        for (int i = 0; i < snapshot.count(); i++) {
+            var id = snapshot.id(i);
+            if(seen[BlockID.indexOf(id)]) continue;
+
+            seen[BlockID.indexOf(id)] = true;
+            if(SpriteRegistry.isAnimated(id)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Show the level drawn last at the current frame of the animation. The frame is composed on its first use
+     * only: the moving blocks are drawn over the static layer of that frame.
+     */
+    private static void animate() {
+        var event = new RenderEvent();
+        event.begin();
+        if(!composedFrames[animationFrame]) composeFrame(drawnSnapshot);
+        present();
+
+        if(event.shouldCommit()) {
+            event.blockCount = drawnSnapshot.count();
+            event.drawnCells = 0;
+            event.full = false;
+            event.commit();
+        }
+    }
+
+    /**
+     * Show the frame in the window.
+     */
+    private static void present() {
         context.renderFrame(graphics -> {
             clear(graphics);
-            draw(graphics, LevelManager.getInstance().getCurrentLevel());
+            graphics.drawImage(frames[animationFrame], offsetCenter.x(), offsetCenter.y(), null);
         });
     }
 
@@ -76,34 +220,111 @@ public final class DisplayComponent {
     }
 
     /**
-     * Draw a level.
-     * @param graphics the graphics to draw on.
-     * @param level the level to be drawn.
-     * @see Level
+     * Create the off-screen layers of a level, centered in the window.
+     * @param snapshot the snapshot of the level.
+     */
+    private static void initLayers(FrameSnapshot snapshot) {
+        var width = blockSize * snapshot.size().x();
+        var height = blockSize * snapshot.size().y();
+        offsetCenter = new Vector2((screenSize.x() - width) / 2, (screenSize.y() - height) / 2);
+        staticLayers = new BufferedImage[SpriteRegistry.getFrameCount()];
+        frames = new BufferedImage[staticLayers.length];
+        for (int i = 0; i < staticLayers.length; i++) {
+            staticLayers[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            frames[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        composedFrames = new boolean[staticLayers.length];
+        drawnGeneration = snapshot.generation();
+    }
+
+    /**
+     * Draw the background and the static blocks of a level in the static layer of each frame of the animation.
+     * @param snapshot the snapshot of the level.
      */
-    private static void draw(Graphics2D graphics, Level level) {
-        graphics.setColor(new Color(9, 9, 9));
-        graphics.fillRect(
-                offsetCenter.x(), offsetCenter.y(),
-                blockSize * level.getSize().x(), blockSize * level.getSize().y()
-        );
-        level.getElements().forEach(elem -> draw(graphics, elem));
+    private static void drawStaticLayers(FrameSnapshot snapshot) {
+        for (int layer = 0; layer < staticLayers.length; layer++) {
+            var graphics = staticLayers[layer].createGraphics();
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, staticLayers[layer].getWidth(), staticLayers[layer].getHeight());
+            for (int i = 0; i < snapshot.count(); i++) {
+                if(snapshot.isStatic(i)) draw(graphics, snapshot, i, layer);
+            }
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Draw the whole frame of the current frame of the animation: its static layer, then the blocks of the cells
+     * holding a block which can move.
+     * @param snapshot the snapshot of the level.
+     */
+    private static void composeFrame(FrameSnapshot snapshot) {
+        composedFrames[animationFrame] = true;
+        var graphics = frames[animationFrame].createGraphics();
+        graphics.drawImage(staticLayers[animationFrame], 0, 0, null);
+        for (int i = 0; i < snapshot.count(); i++) {
+            if(!snapshot.isStatic(i)) draw(graphics, snapshot, i, animationFrame);
+        }
+        graphics.dispose();
+    }
+
+    /**
+     * Draw the changed cells again in the static layers and in the frame of the current frame of the animation.
+     * @param snapshot the snapshot of the level.
+     */
+    private static void drawCells(FrameSnapshot snapshot) {
+        // Blocks of each cell, chained in layer order.
+        var first = new int[snapshot.size().x() * snapshot.size().y()];
+        var next = new int[snapshot.count()];
+        Arrays.fill(first, -1);
+        for (int i = snapshot.count() - 1; i >= 0; i--) {
+            next[i] = first[snapshot.cell(i)];
+            first[snapshot.cell(i)] = i;
+        }
+
+        var layerGraphics = new Graphics2D[staticLayers.length];
+        for (int layer = 0; layer < staticLayers.length; layer++) {
+            layerGraphics[layer] = staticLayers[layer].createGraphics();
+            layerGraphics[layer].setColor(BACKGROUND);
+        }
+        var frameGraphics = frames[animationFrame].createGraphics();
+        var staticLayer = staticLayers[animationFrame];
+        var dirtyCells = snapshot.dirtyCells();
+        for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+            var x = cell % snapshot.size().x() * blockSize;
+            var y = cell / snapshot.size().x() * blockSize;
+
+            for (int layer = 0; layer < staticLayers.length; layer++) {
+                layerGraphics[layer].fillRect(x, y, blockSize, blockSize);
+                for (int i = first[cell]; i >= 0; i = next[i]) {
+                    if(snapshot.isStatic(i)) draw(layerGraphics[layer], snapshot, i, layer);
+                }
+            }
+            frameGraphics.drawImage(staticLayer, x, y, x + blockSize, y + blockSize, x, y, x + blockSize, y + blockSize, null);
+            for (int i = first[cell]; i >= 0; i = next[i]) {
+                if(!snapshot.isStatic(i)) draw(frameGraphics, snapshot, i, animationFrame);
+            }
+        }
+        for (var graphics : layerGraphics) {
+            graphics.dispose();
+        }
+        frameGraphics.dispose();
     }
 
     /**
      * Draw a block.
-     * @param graphics the graphics to draw on.
-     * @param block the block to be drawn.
-     * @see Block
+     * @param graphics the graphics of a layer.
+     * @param snapshot the snapshot of the level.
+     * @param index the index of the block in the snapshot.
+     * @param animationFrame the frame of the animation to draw.
      */
-    private static void draw(Graphics2D graphics, Block block) {
-        var position = block.getPosition();
-        var fitToScreenPosition = position.mul(blockSize).add(offsetCenter);
-        graphics.drawImage(
-                block.getImage(),
-                fitToScreenPosition.x(), fitToScreenPosition.y(),
-                blockSize, blockSize,
-                new Color(0, 0, 0, 0), null
-        );
+    private static void draw(Graphics2D graphics, FrameSnapshot snapshot, int index, int animationFrame) {
+        var cell = snapshot.cell(index);
+        var sprite = SpriteRegistry.get(snapshot.id(index), animationFrame);
+        if(sprite != null) {
+            var x = cell % snapshot.size().x() * blockSize;
+            var y = cell / snapshot.size().x() * blockSize;
+            graphics.drawImage(sprite, x, y, null);
+        }
     }
 }
@@ -0,0 +1,179 @@
+package baba.utils;
+
+import baba.block.Block;
+import baba.block.BlockID;
+import baba.block.identifiers.Property;
+import baba.level.Level;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Immutable copy of what is needed to draw a level: its size, and the identifier and cell of every living block
+ * in layer order. The blocks of a cell are in the order of {@link Level#findByPosition}, the order in which the
+ * rules read the texts of the cell. A snapshot also tells which cells changed since the previous snapshot, which identifiers
+ * cannot move under the current rules, and which cells hold a block which can move.
+ */
+final class FrameSnapshot {
+    private final int generation;
+    private final Vector2 size;
+    private final int[] identifiers;
+    private final int[] cells;
+    private final boolean[] staticIdentifiers;
+    private final BitSet movingCells;
+    private final BitSet dirtyCells;
+    private final boolean full;
+
+    private FrameSnapshot(int generation, Vector2 size, int[] identifiers, int[] cells,
+                          boolean[] staticIdentifiers, BitSet movingCells, BitSet dirtyCells, boolean full) {
+        this.generation = generation;
+        this.size = size;
+        this.identifiers = identifiers;
+        this.cells = cells;
+        this.staticIdentifiers = staticIdentifiers;
+        this.movingCells = movingCells;
+        this.dirtyCells = dirtyCells;
+        this.full = full;
+    }
+
+    /**
+     * Take a snapshot of a level, collecting the cells changed since the last snapshot.
+     * @param level the level to draw.
+     * @param generation the number of the level, changed each time another level is drawn.
+     * @param previous the previous snapshot taken, or null.
+     * @return the snapshot of the level.
+     */
+    static FrameSnapshot of(Level level, int generation, FrameSnapshot previous) {
+        var size = level.getSize();
+        var elements = level.getElements();
+        var identifiers = new int[elements.size()];
+        var cells = new int[elements.size()];
+        var staticIdentifiers = new boolean[BlockID.count()];
+        Arrays.fill(staticIdentifiers, true);
+        var occupiedCells = new BitSet(size.x() * size.y());
+        var stackedCells = new BitSet(size.x() * size.y());
+
+        for (int i = 0; i < identifiers.length; i++) {
+            var block = elements.get(i);
+            var position = block.getPosition();
+            identifiers[i] = BlockID.indexOf(block.getID());
+            cells[i] = position.y() * size.x() + position.x();
+            if(block.hasProperty(Property.YOU) || block.hasProperty(Property.PUSH)) {
+                staticIdentifiers[identifiers[i]] = false;
+            }
+            if(occupiedCells.get(cells[i])) stackedCells.set(cells[i]);
+            occupiedCells.set(cells[i]);
+        }
+        if(!stackedCells.isEmpty()) orderStackedCells(level, identifiers, cells, stackedCells);
+
+        var movingCells = new BitSet(size.x() * size.y());
+        for (int i = 0; i < identifiers.length; i++) {
+            if(!staticIdentifiers[identifiers[i]]) movingCells.set(cells[i]);
+        }
+
+        var full = previous == null || previous.generation != generation
+                || !Arrays.equals(previous.staticIdentifiers, staticIdentifiers);
+        return new FrameSnapshot(generation, size, identifiers, cells, staticIdentifiers, movingCells,
+                level.takeDirtyCells(), full);
+    }
+
+    /**
+     * Give the blocks of each cell holding several blocks the order of the cell in the level, which only depends on
+     * when the blocks entered the cell, whereas the order of the living blocks depends on the whole board.
+     * Cells never overlap, so only the order inside a cell matters.
+     * @param level the level to draw.
+     * @param identifiers the identifier of each block, reordered in place.
+     * @param cells the cell of each block.
+     * @param stackedCells the cells holding several blocks.
+     */
+    private static void orderStackedCells(Level level, int[] identifiers, int[] cells, BitSet stackedCells) {
+        var size = level.getSize();
+        var ordered = new HashMap<Integer, Iterator<Block>>();
+        for (int i = 0; i < identifiers.length; i++) {
+            var cell = cells[i];
+            if(!stackedCells.get(cell)) continue;
+
+            var blocks = ordered.computeIfAbsent(cell,
+                    key -> level.findByPosition(new Vector2(key % size.x(), key / size.x())).iterator());
+            identifiers[i] = BlockID.indexOf(blocks.next().getID());
+        }
+    }
+
+    /**
+     * Return a snapshot equal to this one, also marking as changed the cells of an older snapshot
+     * which was never drawn.
+     * @param older the older snapshot.
+     * @return the merged snapshot.
+     */
+    FrameSnapshot mergeOlder(FrameSnapshot older) {
+        if(older.generation != generation) return this;
+
+        var merged = (BitSet) dirtyCells.clone();
+        merged.or(older.dirtyCells);
+        return new FrameSnapshot(generation, size, identifiers, cells, staticIdentifiers, movingCells, merged,
+                full || older.full);
+    }
+
+    /**
+     * Return true if the snapshot has nothing to draw again.
+     * @return true if no cell changed.
+     */
+    boolean isUnchanged() {
+        return !full && dirtyCells.isEmpty();
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    Vector2 size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    BitSet dirtyCells() {
+        return (BitSet) dirtyCells.clone();
+    }
+
+    /**
+     * Return the number of living blocks.
+     * @return the number of blocks of the snapshot.
+     */
+    int count() {
+        return identifiers.length;
+    }
+
+    /**
+     * Return the identifier of a block.
+     * @param index the index of the block, in layer order.
+     * @return the identifier of the block.
+     */
+    BlockID id(int index) {
+        return BlockID.fromIndex(identifiers[index]);
+    }
+
+    /**
+     * Return the cell of a block.
+     * @param index the index of the block, in layer order.
+     * @return the cell of the block, the cell (x, y) being {@code y * width + x}.
+     */
+    int cell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Return true if a block is drawn in the static layer: it cannot move under the rules of the snapshot, and
+     * no block of its cell can. The blocks of a cell holding a moving block are all drawn over the static layer,
+     * so that they keep their layer order.
+     * @param index the index of the block, in layer order.
+     * @return true if the block is static.
+     */
+    boolean isStatic(int index) {
+        return staticIdentifiers[identifiers[index]] && !movingCells.get(cells[index]);
+    }
+}
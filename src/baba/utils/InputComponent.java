@@ -1,5 +1,6 @@
 package baba.utils;
 
+import baba.events.InputEvent;
 import baba.level.LevelManager;
 import fr.umlv.zen5.ApplicationContext;
 import fr.umlv.zen5.Event;
@@ -9,7 +10,8 @@ import fr.umlv.zen5.Event;
  */
 public final class InputComponent {
     private static ApplicationContext context;
-    private static Direction MoveDirection;
+    private static final long WAIT_TIMEOUT = 1000; // in milliseconds
+    private static Direction MoveDirection = Direction.NONE;
 
     private InputComponent() {}
 
@@ -27,25 +29,41 @@ public final class InputComponent {
     }
 
     /**
-     * Process receiving inputs and controls.
+     * Wait until a key is released.
+     * @return the key release event.
      */
-    public static void processInput() {
-        MoveDirection = Direction.NONE;
-        Event event = context.pollOrWaitEvent(30);
-        if(event == null) return;
+    public static Event waitInput() {
+        while(true) {
+            Event event = context.pollOrWaitEvent(WAIT_TIMEOUT);
+            if(event != null && event.getAction() == Event.Action.KEY_RELEASED) return event;
+        }
+    }
+
+    /**
+     * Process a key release: set the move direction, or run the corresponding command.
+     * @param event the key release event.
+     */
+    public static void processInput(Event event) {
+        var inputEvent = new InputEvent();
+        inputEvent.begin();
+        MoveDirection = getMoveInputToDirection(event);
+        var levelManager = LevelManager.getInstance();
+        switch (event.getKey()) {
+            case R -> levelManager.reload();
+            case D -> levelManager.previous();
+            case F -> levelManager.skip();
+            case Q -> levelManager.quit();
+            case S -> levelManager.save();
+            case T -> levelManager.load();
+            case N -> levelManager.nextSaveSlot();
+            case Z -> levelManager.undo();
+            case Y -> levelManager.redo();
+        }
 
-        Event.Action action = event.getAction();
-        if(action == Event.Action.KEY_RELEASED) {
-            MoveDirection = getMoveInputToDirection(event);
-            var levelManager = LevelManager.getInstance();
-            switch (event.getKey()) {
-                case R -> levelManager.reload();
-                case D -> levelManager.previous();
-                case F -> levelManager.skip();
-                case Q -> levelManager.quit();
-                case S -> levelManager.save();
-                case T -> levelManager.load();
-            }
+        if(inputEvent.shouldCommit() && levelManager.getCurrentLevel() != null) {
+            inputEvent.key = event.getKey().name();
+            inputEvent.describe(levelManager.getCurrentLevel(), MoveDirection != Direction.NONE);
+            inputEvent.commit();
         }
     }
 
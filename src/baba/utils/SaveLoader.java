@@ -1,100 +1,232 @@
 package baba.utils;
 
-import baba.block.Block;
-import baba.block.BlockID;
+import baba.level.BoardState;
 import baba.level.Level;
-import baba.level.LevelManager;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
+import java.util.Objects;
 
 /**
- * Allow saving and loading game state.
+ * Allow saving and loading game states in numbered slots of a binary save file.
+ * <p>
+ * The file starts with a header: a magic number, the format version, the number of slots and an index
+ * giving the offset and length of each slot (a length of 0 means an empty slot). A slot contains the name
+ * of the level, the board size, the hash of the board and the blocks packed as in {@link BoardState}.
+ * The file is replaced atomically on save and memory-mapped on load.
  */
 public class SaveLoader {
-    private final static Path SAVEFILEPATH = Path.of("res/saveFile.sav");
-    public final static String SEPARATOR = " ";
+    private final static Path DEFAULT_PATH = Path.of("res/saveFile.sav");
+    private final static int MAGIC = 0x42414241; // "BABA"
+    private final static short VERSION = 1;
+    private final static int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES;
+    private final static int INDEX_ENTRY_SIZE = Integer.BYTES + Integer.BYTES;
 
     /**
-     * Save the level elements to file.
-     * @param level the level to be saved.
+     * Number of slots of the save file.
      */
-    public void save(Level level) {
-        System.out.println("Game saved at " + SAVEFILEPATH + "...");
-        try(var writer = Files.newBufferedWriter(SAVEFILEPATH,
-                StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE)) {
-            levelToText(level, writer);
-        }catch (IOException err) {
-            System.out.println("Error while saving...");
-        }
+    public final static int SLOTS = 10;
+
+    /**
+     * A saved game state.
+     * @param levelName the name of the level file.
+     * @param state the state of the board.
+     */
+    public record Save(String levelName, BoardState state) {}
+
+    private final Path path;
+
+    /**
+     * Create a save loader using the default save file, res/saveFile.sav.
+     */
+    public SaveLoader() {
+        this(DEFAULT_PATH);
     }
 
     /**
-     * Write the specified level to the save file in a text format.
-     * @param level the level to be saved.
-     * @param writer the writer to the save file.
+     * Create a save loader using the specified save file.
+     * @param path the save file.
      */
-    private void levelToText(Level level, BufferedWriter writer) throws IOException {
-        var elements = level.getElements();
+    public SaveLoader(Path path) {
+        this.path = Objects.requireNonNull(path);
+    }
 
-        writer.write(LevelManager.getInstance().getCurrentLevelName() + "\n");
-        for (Block elem : elements) {
-            writer.write(elem.toTextFormat() + "\n");
-        }
-        writer.write("\n");
+    /**
+     * Return the save file.
+     * @return the path of the save file.
+     */
+    public Path getPath() {
+        return path;
     }
 
     /**
-     * Read the save file and update the specified level.
-     * @param level the level that to be updated.
+     * Save the level elements to a slot of the save file. An invalid save file is replaced.
+     * @param level the level to be saved.
+     * @param levelName the name of the level file.
+     * @param slot the slot to write.
      */
-    public void load(Level level) {
-        if(!Files.exists(SAVEFILEPATH)) {
-            System.out.println(SAVEFILEPATH + " is missing...");
-            return;
-        }
+    public void save(Level level, String levelName, int slot) throws IOException {
+        checkSlot(slot);
+        var slots = readSlots();
+        slots[slot] = encode(levelName, level.getState(), level.getHash());
+        write(slots);
+    }
 
-        System.out.println("Game loaded from " + SAVEFILEPATH + "...");
-        try(var reader = Files.newBufferedReader(SAVEFILEPATH)) {
-            levelFromText(level, reader);
-        } catch (IOException err) {
-            System.out.println("Error while loading, file is invalid");
+    /**
+     * Read a slot of the save file.
+     * @param slot the slot to read.
+     * @return the saved game state, or null if the slot is empty or the file is missing.
+     * @throws IOException if the save file is invalid.
+     */
+    public Save load(int slot) throws IOException {
+        checkSlot(slot);
+        if(!Files.exists(path)) return null;
+
+        try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(slotOf(buffer, slot));
+        } catch (RuntimeException err) {
+            throw new IOException("invalid save file " + path, err);
         }
     }
 
+    private static void checkSlot(int slot) {
+        if(slot < 0 || slot >= SLOTS) throw new IllegalArgumentException("invalid save slot " + slot);
+    }
+
     /**
-     * Create a list of block based on the save file content and send it to the specified level.
-     * @param level the level to receive the modification.
-     * @param reader the reader to the save file.
+     * Return the content of a slot, as a view of the save file.
+     * @param file the content of the save file.
+     * @param slot the slot to read.
+     * @return the content of the slot, or null if the slot is empty.
      */
-    private void levelFromText(Level level, BufferedReader reader) throws IOException {
-        var elements = new ArrayList<Block>();
-
-        LevelManager.getInstance().skipAtLevel(reader.readLine());
+    private static ByteBuffer slotOf(ByteBuffer file, int slot) throws IOException {
+        if(file.getInt(0) != MAGIC || file.getShort(Integer.BYTES) != VERSION)
+            throw new IOException("not a save file");
+        if(file.getShort(Integer.BYTES + Short.BYTES) != SLOTS)
+            throw new IOException("invalid number of slots");
+
+        var entry = HEADER_SIZE + slot * INDEX_ENTRY_SIZE;
+        var offset = file.getInt(entry);
+        var length = file.getInt(entry + Integer.BYTES);
+        if(length == 0) return null;
+        return file.slice(offset, length);
+    }
 
-        do {
-            var line = reader.readLine().split(SEPARATOR);
+    /**
+     * Read every slot of the existing save file.
+     * @return the content of each slot, null for the empty slots; every slot is empty if the file is invalid.
+     */
+    private ByteBuffer[] readSlots() {
+        var slots = new ByteBuffer[SLOTS];
+        if(!Files.exists(path)) return slots;
+
+        try {
+            var file = ByteBuffer.wrap(Files.readAllBytes(path));
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = slotOf(file, i);
+            }
+        } catch (IOException | RuntimeException err) {
+            return new ByteBuffer[SLOTS];
+        }
+        return slots;
+    }
 
-            if(line.length <= 1) break; // End of file.
+    /**
+     * Write the save file with the given slots, replacing the existing file atomically.
+     * @param slots the content of each slot, null for the empty slots.
+     */
+    private void write(ByteBuffer[] slots) throws IOException {
+        var indexSize = HEADER_SIZE + SLOTS * INDEX_ENTRY_SIZE;
+        var size = indexSize;
+        for (var slot : slots) {
+            if(slot != null) size += slot.remaining();
+        }
 
-            var id = BlockID.valueOf(line[0]);
-            var position = new Vector2(Integer.parseInt(line[1]), Integer.parseInt(line[2]));
-            var dead = Boolean.parseBoolean(line[3]);
+        var file = ByteBuffer.allocate(size);
+        file.putInt(MAGIC).putShort(VERSION).putShort((short) SLOTS);
+        var offset = indexSize;
+        for (var slot : slots) {
+            var length = slot == null ? 0 : slot.remaining();
+            file.putInt(length == 0 ? 0 : offset).putInt(length);
+            offset += length;
+        }
+        for (var slot : slots) {
+            if(slot != null) file.put(slot.duplicate());
+        }
 
-            var block = new Block(id);
-            block.setPosition(position);
-            block.setDead(dead);
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, file.array());
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException err) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-            elements.add(block);
-        }while(reader.ready());
+    /**
+     * Encode a game state in the slot format.
+     * @param levelName the name of the level file.
+     * @param state the state of the board.
+     * @param hash the Zobrist hash of the board.
+     * @return the content of the slot.
+     */
+    private static ByteBuffer encode(String levelName, BoardState state, long hash) {
+        var name = levelName.getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocate(Short.BYTES + name.length + 2 * Short.BYTES + Long.BYTES
+                + Integer.BYTES + state.count() * Integer.BYTES);
+
+        buffer.putShort((short) name.length).put(name);
+        buffer.putShort((short) state.getSize().x()).putShort((short) state.getSize().y());
+        buffer.putLong(hash);
+        buffer.putInt(state.count());
+        for (int i = 0; i < state.count(); i++) {
+            buffer.putInt(state.packed(i));
+        }
+        return buffer.flip();
+    }
 
-        level.loadElements(elements);
+    /**
+     * Decode the content of a slot.
+     * @param slot the content of the slot, or null for an empty slot.
+     * @return the saved game state, or null for an empty slot.
+     */
+    private static Save decode(ByteBuffer slot) throws IOException {
+        if(slot == null) return null;
+
+        try {
+            var nameLength = slot.getShort();
+            if(nameLength < 0 || nameLength > slot.remaining()) throw new IOException("invalid level name");
+            var name = new byte[nameLength];
+            slot.get(name);
+            var size = new Vector2(slot.getShort(), slot.getShort());
+            if(size.x() <= 0 || size.y() <= 0 || size.x() > BoardState.MAX_SIZE || size.y() > BoardState.MAX_SIZE)
+                throw new IOException("invalid board size " + size);
+            var hash = slot.getLong();
+
+            // A corrupted count must not allocate more than the slot holds.
+            var count = slot.getInt();
+            if(count < 0 || count != slot.remaining() / Integer.BYTES || slot.remaining() % Integer.BYTES != 0)
+                throw new IOException("invalid block count " + count);
+            var blocks = new int[count];
+            slot.asIntBuffer().get(blocks);
+            for (int block : blocks) {
+                if(!BoardState.isValid(block, size)) throw new IOException("block out of the board");
+            }
+
+            var state = BoardState.of(size, blocks);
+            if(state.zobristHash() != hash) throw new IOException("corrupted save slot");
+            return new Save(new String(name, StandardCharsets.UTF_8), state);
+        } catch (BufferUnderflowException err) {
+            throw new IOException("truncated save slot", err);
+        }
     }
 }
@@ -0,0 +1,177 @@
+package baba.utils;
+
+import baba.block.BlockID;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Shared sprites of the block identifiers. Each sprite is read once from res/sprites and cached
+ * scaled to the current block size, so blocks share the same images and rendering does not rescale.
+ * Every frame of an animated sprite is kept; the frames of all the sprites advance together, every
+ * FRAME_DURATION milliseconds, which is close to the delays of the shipped GIF files (150 to 200 ms).
+ */
+public final class SpriteRegistry {
+    private static final String SPRITES_FOLDER = "res/sprites/";
+    /**
+     * Duration of a frame of the animation, in milliseconds.
+     */
+    public static final int FRAME_DURATION = 180;
+
+    private static final BufferedImage[][] sprites = new BufferedImage[BlockID.count()][];
+    private static final Image[][] scaledSprites = new Image[BlockID.count()][];
+    private static final boolean[] missing = new boolean[BlockID.count()];
+    private static int blockSize;
+    private static int frameCount = 1;
+
+    private SpriteRegistry() {}
+
+    /**
+     * Load the sprites of every identifier.
+     */
+    public static void loadAll() {
+        for (int i = 0; i < BlockID.count(); i++) {
+            getSprite(i);
+        }
+    }
+
+    /**
+     * Set the size at which the sprites are scaled, discarding the sprites scaled to the previous size.
+     * @param size the size of a block side in pixels.
+     */
+    public static synchronized void setBlockSize(int size) {
+        if(size == blockSize) return;
+        blockSize = size;
+        Arrays.fill(scaledSprites, null);
+    }
+
+    /**
+     * Return the number of frames of the animation, the largest number of frames of the loaded sprites.
+     * @return the number of frames.
+     */
+    public static synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Return true if the sprite of an identifier has several frames.
+     * @param id the identifier of the block.
+     * @return true if the sprite is animated.
+     */
+    public static synchronized boolean isAnimated(BlockID id) {
+        var sprite = getSprite(BlockID.indexOf(id));
+        return sprite != null && sprite.length > 1;
+    }
+
+    /**
+     * Return a frame of the sprite of an identifier, scaled to the current block size.
+     * A sprite with fewer frames than the animation starts again from its first frame.
+     * @param id the identifier of the block.
+     * @param frame the frame of the animation.
+     * @return the scaled frame, or null if the identifier has no sprite.
+     */
+    public static synchronized Image get(BlockID id, int frame) {
+        var index = BlockID.indexOf(id);
+        var scaled = scaledSprites[index];
+        if(scaled == null && blockSize > 0) {
+            var sprite = getSprite(index);
+            if(sprite == null) return null;
+
+            scaled = new Image[sprite.length];
+            for (int i = 0; i < sprite.length; i++) {
+                var image = new BufferedImage(blockSize, blockSize, BufferedImage.TYPE_INT_ARGB);
+                var graphics = image.createGraphics();
+                graphics.drawImage(sprite[i], 0, 0, blockSize, blockSize, null);
+                graphics.dispose();
+                scaled[i] = image;
+            }
+            scaledSprites[index] = scaled;
+        }
+        return scaled == null ? null : scaled[frame % scaled.length];
+    }
+
+    /**
+     * Return the frames of the sprite of an identifier at their original size, reading them on first use.
+     * @param index the dense index of the identifier.
+     * @return the frames of the sprite, or null if the identifier has no sprite.
+     */
+    private static synchronized BufferedImage[] getSprite(int index) {
+        if(sprites[index] != null || missing[index]) return sprites[index];
+
+        var file = new File(SPRITES_FOLDER + BlockID.fromIndex(index) + ".gif");
+        BufferedImage[] sprite;
+        try {
+            sprite = file.exists() ? readFrames(file) : null;
+        } catch (IOException err) {
+            sprite = null;
+        }
+        if(sprite == null || sprite.length == 0) {
+            missing[index] = true;
+            return null;
+        }
+        sprites[index] = sprite;
+        frameCount = Math.max(frameCount, sprite.length);
+        return sprite;
+    }
+
+    /**
+     * Read every frame of a GIF file, each frame drawn over the previous ones as its disposal method requires.
+     * @param file the GIF file.
+     * @return the frames of the image.
+     * @throws IOException if the file cannot be read.
+     */
+    private static BufferedImage[] readFrames(File file) throws IOException {
+        var readers = ImageIO.getImageReadersByFormatName("gif");
+        if(!readers.hasNext()) throw new IOException("no GIF reader");
+        ImageReader reader = readers.next();
+        try (var input = ImageIO.createImageInputStream(file)) {
+            reader.setInput(input);
+            var stream = (IIOMetadataNode) reader.getStreamMetadata().getAsTree("javax_imageio_gif_stream_1.0");
+            var screen = (IIOMetadataNode) stream.getElementsByTagName("LogicalScreenDescriptor").item(0);
+            var canvas = new BufferedImage(Integer.parseInt(screen.getAttribute("logicalScreenWidth")),
+                    Integer.parseInt(screen.getAttribute("logicalScreenHeight")), BufferedImage.TYPE_INT_ARGB);
+            var frames = new ArrayList<BufferedImage>();
+            for (int i = 0; i < reader.getNumImages(true); i++) {
+                var image = reader.read(i);
+                var metadata = (IIOMetadataNode) reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                var descriptor = (IIOMetadataNode) metadata.getElementsByTagName("ImageDescriptor").item(0);
+                var x = Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+                var y = Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+
+                var previous = copy(canvas);
+                var graphics = canvas.createGraphics();
+                graphics.drawImage(image, x, y, null);
+                frames.add(copy(canvas));
+
+                var control = (IIOMetadataNode) metadata.getElementsByTagName("GraphicControlExtension").item(0);
+                var disposal = control == null ? "none" : control.getAttribute("disposalMethod");
+                if(disposal.equals("restoreToBackgroundColor")) {
+                    graphics.setComposite(AlphaComposite.Clear);
+                    graphics.fillRect(x, y, image.getWidth(), image.getHeight());
+                }
+                else if(disposal.equals("restoreToPrevious")) {
+                    canvas = previous;
+                }
+                graphics.dispose();
+            }
+            return frames.toArray(BufferedImage[]::new);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        var copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        var graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+}
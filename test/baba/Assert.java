@@ -0,0 +1,31 @@
+package baba;
+
+import java.util.Objects;
+
+/**
+ * Assertions of the tests, throwing an AssertionError when they do not hold.
+ */
+public final class Assert {
+    private Assert() {}
+
+    /**
+     * Check that a condition holds.
+     * @param condition the condition.
+     * @param message the description of the failure.
+     */
+    public static void assertTrue(boolean condition, String message) {
+        if(!condition) throw new AssertionError(message);
+    }
+
+    /**
+     * Check that two values are equal.
+     * @param expected the expected value.
+     * @param actual the actual value.
+     * @param message the description of the failure.
+     */
+    public static void assertEquals(Object expected, Object actual, String message) {
+        if(!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package baba;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Run the tests without any test framework: every public method named test* of the classes named *Test
+ * is called on a new instance of its class. A test fails when it throws.
+ */
+public final class TestRunner {
+    private TestRunner() {}
+
+    /**
+     * Run the tests compiled in a folder.
+     * Usage: TestRunner FOLDER
+     * @param args the folder of the compiled tests.
+     */
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        if(args.length < 1) {
+            throw new IllegalArgumentException("command require the folder of the compiled tests");
+        }
+
+        var root = Path.of(args[0]);
+        List<String> classes;
+        try (var files = Files.walk(root)) {
+            classes = files.map(file -> root.relativize(file).toString())
+                    .filter(name -> name.endsWith("Test.class"))
+                    .map(name -> name.substring(0, name.length() - ".class".length()).replace(root.getFileSystem().getSeparator(), "."))
+                    .sorted().toList();
+        }
+
+        var passed = 0;
+        var failed = 0;
+        for (var name : classes) {
+            var type = Class.forName(name);
+            for (var method : type.getMethods()) {
+                if(!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || Modifier.isStatic(method.getModifiers())) continue;
+
+                var start = System.nanoTime();
+                try {
+                    method.invoke(type.getConstructor().newInstance());
+                    passed++;
+                    System.out.printf("PASS %s.%s (%.0f ms)%n", type.getSimpleName(), method.getName(),
+                            (System.nanoTime() - start) / 1e6);
+                } catch (InvocationTargetException err) {
+                    failed++;
+                    System.out.printf("FAIL %s.%s: %s%n", type.getSimpleName(), method.getName(), err.getCause());
+                    err.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+
+        System.out.println(passed + " passed, " + failed + " failed");
+        if(failed > 0 || passed == 0) System.exit(1);
+    }
+}
@@ -0,0 +1,40 @@
+package baba.level;
+
+import baba.block.BlockID;
+import baba.utils.Direction;
+
+import static baba.Assert.assertEquals;
+
+public class IdentifierIndexTest {
+    /**
+     * Check that the blocks found by identifier are the living blocks with that identifier.
+     */
+    private static void assertConsistent(Level level) {
+        var living = level.getState().toBlocks();
+        for (int i = 0; i < BlockID.count(); i++) {
+            var id = BlockID.fromIndex(i);
+            var expected = TestLevels.describe(living.stream().filter(block -> block.getID() == id).toList());
+            assertEquals(expected, TestLevels.describe(level.findByID(id)), "blocks of " + id);
+        }
+    }
+
+    public void testIdentityChangesAndUndo() {
+        var level = TestLevels.level(
+                "ROCK,IS,FLAG,,",
+                "FLAG,IS,WALL,,",
+                "BABA,IS,YOU,,",
+                "OBJ_ROCK,OBJ_FLAG,OBJ_ROCK,,OBJ_BABA",
+                "OBJ_WALL,,OBJ_ROCK,OBJ_ROCK,");
+        level.advance(Direction.NONE);
+        assertConsistent(level);
+
+        level.advance(Direction.LEFT);
+        assertConsistent(level);
+        while(level.undo()) {
+            assertConsistent(level);
+        }
+        while(level.redo()) {
+            assertConsistent(level);
+        }
+    }
+}
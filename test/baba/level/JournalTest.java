@@ -0,0 +1,118 @@
+package baba.level;
+
+import baba.block.identifiers.RealObject;
+import baba.utils.Direction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class JournalTest {
+    private static final int ROCKS = 100;
+    private static final int CYCLES = 200;
+
+    /**
+     * Create a level where moving up writes ROCK IS FLAG, transforming a row of rocks, next to a filler
+     * of walls which never change.
+     */
+    private static Level level(int fillerSize) {
+        var width = Math.max(ROCKS, fillerSize);
+        var rows = new ArrayList<String>();
+        rows.add(row(width, "BABA", "IS", "YOU"));
+        rows.add(row(width, "ROCK", "", "FLAG"));
+        rows.add(row(width, "", "IS"));
+        rows.add(row(width, "", "OBJ_BABA"));
+        rows.add(row(width, Collections.nCopies(ROCKS, "OBJ_ROCK").toArray(String[]::new)));
+        for (int i = 0; i < fillerSize; i++) {
+            rows.add(row(width, Collections.nCopies(fillerSize, "OBJ_WALL").toArray(String[]::new)));
+        }
+        return TestLevels.level(rows.toArray(String[]::new));
+    }
+
+    private static String row(int width, String... cells) {
+        var row = new ArrayList<String>(Collections.nCopies(width, ""));
+        for (int i = 0; i < cells.length; i++) {
+            row.set(i, cells[i]);
+        }
+        return String.join(",", row);
+    }
+
+    /**
+     * Return the shortest time, in nanoseconds, to undo then redo every step of the level.
+     */
+    private static long undoRedoTime(Level level) {
+        var best = Long.MAX_VALUE;
+        for (int i = 0; i < CYCLES; i++) {
+            var start = System.nanoTime();
+            while(level.undo()) {}
+            while(level.redo()) {}
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public void testUndoRestoresTransformation() {
+        var level = level(0);
+        level.advance(Direction.NONE);
+        level.advance(Direction.UP);
+        assertEquals(ROCKS, level.findByID(RealObject.FLAG).size(), "flags after the move");
+
+        while(level.undo()) {}
+        assertEquals(ROCKS, level.findByID(RealObject.ROCK).size(), "rocks after undo");
+        assertEquals(0, level.findByID(RealObject.FLAG).size(), "flags after undo");
+    }
+
+    public void testUndoCostIndependentOfBoardSize() {
+        var small = level(0);
+        var large = level(400);
+        for (var level : new Level[] {small, large}) {
+            level.advance(Direction.NONE);
+            level.advance(Direction.UP);
+            assertEquals(ROCKS, level.findByID(RealObject.FLAG).size(), "flags after the move");
+        }
+
+        // Warm up both levels before measuring.
+        undoRedoTime(small);
+        undoRedoTime(large);
+        var smallTime = undoRedoTime(small);
+        var largeTime = undoRedoTime(large);
+
+        // The large level holds 160000 more blocks, but the same changes are undone.
+        assertTrue(largeTime < 4 * smallTime + 200_000,
+                "undo cost grows with the board: " + smallTime + " ns for the small level, "
+                        + largeTime + " ns for the large level");
+    }
+
+    public void testUndoRestoresWin() {
+        var level = TestLevels.level(
+                "BABA,IS,YOU,,",
+                "FLAG,IS,WIN,,",
+                "OBJ_BABA,OBJ_FLAG,,,");
+        level.advance(Direction.NONE);
+        level.advance(Direction.RIGHT);
+        assertTrue(level.isWon() && level.isFinished(), "baba on the flag not won");
+
+        assertTrue(level.undo(), "winning move not undone");
+        assertEquals(false, level.isWon(), "won after undoing the winning move");
+        assertEquals(false, level.isFinished(), "finished after undoing the winning move");
+
+        assertTrue(level.redo(), "winning move not redone");
+        assertTrue(level.isWon() && level.isFinished(), "not won after redoing the winning move");
+    }
+
+    public void testUndoRestoresDefeat() {
+        var level = TestLevels.level(
+                "BABA,IS,YOU,,",
+                "ROCK,IS,DEFEAT,,",
+                "OBJ_BABA,OBJ_ROCK,,,");
+        level.advance(Direction.NONE);
+        level.advance(Direction.RIGHT);
+        assertTrue(level.isDefeated(), "baba on the rock not defeated");
+
+        assertTrue(level.undo(), "losing move not undone");
+        assertEquals(false, level.isDefeated(), "defeated after undoing the losing move");
+        assertEquals(false, level.isFinished(), "finished after undoing the losing move");
+    }
+}
@@ -0,0 +1,57 @@
+package baba.level;
+
+import baba.block.identifiers.RealObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class LevelCompilerTest {
+    // Offset of the block count in a compiled file: magic, version, layout hash, source length and time, size.
+    private static final int COUNT_OFFSET = Integer.BYTES + Short.BYTES + Integer.BYTES + 2 * Long.BYTES
+            + 2 * Short.BYTES;
+
+    /**
+     * Compile a level, corrupt its compiled file, and check that the level is read from the CSV file.
+     */
+    private static void assertCorruptionIgnored(Consumer<ByteBuffer> corruption, String description)
+            throws IOException {
+        var source = TestLevels.file(
+                "BABA,IS,YOU",
+                "OBJ_BABA,,OBJ_ROCK");
+        var compiled = LevelCompiler.compile(source);
+        compiled.deleteOnExit();
+        assertTrue(LevelCompiler.readCompiled(source) != null, "compiled level not read");
+
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(compiled.toPath()));
+        corruption.accept(buffer);
+        Files.write(compiled.toPath(), buffer.array());
+
+        assertEquals(null, LevelCompiler.readCompiled(source), "corrupted compiled file read: " + description);
+        var board = LevelCompiler.load(source);
+        assertEquals(Arrays.toString(LevelCompiler.readSource(source).blocks()), Arrays.toString(board.blocks()),
+                "blocks loaded with " + description);
+    }
+
+    public void testNegativeCountIgnored() throws IOException {
+        assertCorruptionIgnored(buffer -> buffer.putInt(COUNT_OFFSET, -1), "a negative count");
+    }
+
+    public void testHugeCountIgnored() throws IOException {
+        assertCorruptionIgnored(buffer -> buffer.putInt(COUNT_OFFSET, Integer.MAX_VALUE), "a huge count");
+    }
+
+    public void testBlockOutOfBoardIgnored() throws IOException {
+        assertCorruptionIgnored(buffer -> buffer.putInt(COUNT_OFFSET + Integer.BYTES,
+                BoardState.pack(RealObject.ROCK, 3, 0, false)), "a block out of the board");
+    }
+
+    public void testInvalidSizeIgnored() throws IOException {
+        assertCorruptionIgnored(buffer -> buffer.putShort(COUNT_OFFSET - Short.BYTES, (short) -2), "a negative size");
+    }
+}
@@ -0,0 +1,38 @@
+package baba.level;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class LevelGeneratorTest {
+    private static final int RULES = 8;
+
+    private static LevelGenerator generator(long seed) {
+        var generator = new LevelGenerator(40, 30, seed);
+        generator.setTextDensity(0.3);
+        generator.setRuleCount(RULES);
+        return generator;
+    }
+
+    public void testSameSeedGivesSameLevel() {
+        assertTrue(Arrays.deepEquals(generator(42).generate(), generator(42).generate()),
+                "levels of the same seed differ");
+        assertTrue(!Arrays.deepEquals(generator(42).generate(), generator(43).generate()), "seed not used");
+    }
+
+    public void testScatteredTextsWriteNoRule() throws IOException {
+        for (long seed = 0; seed < 10; seed++) {
+            var file = Files.createTempFile("baba-test-", ".csv");
+            file.toFile().deleteOnExit();
+            generator(seed).write(file);
+
+            var level = new Level(file.toFile(), List.of());
+            level.recognizeRules();
+            assertEquals(RULES, level.getRuleCount(), "rules written on the level of seed " + seed);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.block.identifiers.RealObject;
+import baba.utils.Direction;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class LiveElementsTest {
+    /**
+     * Check that the live view holds each living block once, ordered by priority.
+     */
+    private static void assertConsistent(Level level) {
+        var elements = level.getElements();
+        assertEquals(TestLevels.describe(level.getState().toBlocks()), TestLevels.describe(elements),
+                "living blocks");
+
+        var distinct = Collections.newSetFromMap(new IdentityHashMap<Block, Boolean>());
+        var previous = Integer.MIN_VALUE;
+        for (var block : elements) {
+            assertTrue(!block.isDead(), "dead block in the live view " + block.getID());
+            assertTrue(distinct.add(block), "duplicate block in the live view " + block.getID());
+            assertTrue(block.getPriority() >= previous, "live view not ordered by priority");
+            previous = block.getPriority();
+        }
+        assertEquals(distinct.size(), elements.size(), "size of the live view");
+    }
+
+    public void testIdentityChange() {
+        var level = TestLevels.level(
+                "ROCK,IS,FLAG,,",
+                ",,,,",
+                "OBJ_ROCK,OBJ_ROCK,,OBJ_ROCK,",
+                ",OBJ_ROCK,,,OBJ_BABA");
+        level.advance(Direction.NONE);
+
+        assertEquals(0, level.findByID(RealObject.ROCK).size(), "rocks left");
+        assertEquals(4, level.findByID(RealObject.FLAG).size(), "flags");
+        assertConsistent(level);
+    }
+
+    public void testChainedIdentityChangesAndUndo() {
+        var level = TestLevels.level(
+                "ROCK,IS,FLAG,,",
+                "FLAG,IS,WALL,,",
+                "BABA,IS,YOU,,",
+                "OBJ_ROCK,OBJ_FLAG,OBJ_ROCK,,OBJ_BABA",
+                "OBJ_WALL,,OBJ_ROCK,,");
+        level.advance(Direction.NONE);
+        assertConsistent(level);
+
+        level.advance(Direction.LEFT);
+        assertConsistent(level);
+        while(level.undo()) {
+            assertConsistent(level);
+        }
+        while(level.redo()) {
+            assertConsistent(level);
+        }
+        level.reset();
+        level.advance(Direction.NONE);
+        assertConsistent(level);
+    }
+}
@@ -0,0 +1,85 @@
+package baba.level;
+
+import baba.utils.Direction;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class SimulationTest {
+    /**
+     * Play moves in a simulation and in a replay recorded from the game loop commands.
+     */
+    private static void assertSameAsReplay(File file, List<Direction> moves) {
+        var simulation = new Simulation(file, TestLevels.startingRules());
+        var recorder = new Replay.Recorder(file, TestLevels.startingRules());
+        var recorded = new Level(file, TestLevels.startingRules());
+        recorded.advance(Direction.NONE);
+        for (var move : moves) {
+            simulation.step(move);
+            var command = Replay.Command.of(move);
+            recorder.record(command);
+            command.apply(recorded);
+            assertEquals(recorded.getHash(), simulation.getLevel().getHash(), "board after " + move);
+        }
+
+        var replay = recorder.finish(recorded);
+        var played = replay.play();
+        assertEquals(replay.getHash(), simulation.getLevel().getHash(), "board at the end of the replay");
+        assertEquals(played.getHash(), simulation.getLevel().getHash(), "board of the played replay");
+        assertEquals(played.isWon(), simulation.getLevel().isWon(), "won");
+        assertEquals(played.isDefeated(), simulation.getLevel().isDefeated(), "defeated");
+    }
+
+    public void testRuleWrittenByTheMoveApplies() {
+        var file = TestLevels.file(
+                "BABA,IS,YOU,,",
+                "BABA,IS,,WIN,OBJ_BABA");
+        var simulation = new Simulation(file, TestLevels.startingRules());
+        assertEquals(Simulation.Outcome.WON, simulation.step(Direction.LEFT), "outcome of the move");
+        assertSameAsReplay(file, List.of(Direction.LEFT));
+    }
+
+    public void testTicksWithoutMoveAreReplayed() {
+        // The left baba writes ROCK IS DEFEAT while the other one steps on a rock: the rule only kills it
+        // at the next update, which advance does not reach when it may not update after the move.
+        var file = TestLevels.file(
+                "BABA,IS,YOU,,",
+                "ROCK,IS,,DEFEAT,OBJ_BABA",
+                "OBJ_ROCK,OBJ_BABA,,,");
+        var simulation = new Simulation(file, TestLevels.startingRules());
+        simulation.getLevel().setMaxSettlingUpdates(0);
+        var recorder = new Replay.Recorder(file, TestLevels.startingRules());
+        var hashes = new ArrayList<Long>();
+        for (var move : List.of(Direction.LEFT, Direction.NONE)) {
+            simulation.step(move);
+            recorder.record(Replay.Command.of(move));
+            hashes.add(simulation.getLevel().getHash());
+        }
+        assertTrue(!hashes.get(0).equals(hashes.get(1)), "board settled by the move");
+        assertEquals(1, simulation.getLevel().getDead().size(), "blocks killed");
+
+        var replay = recorder.finish(simulation.getLevel());
+        var played = replay.start();
+        played.setMaxSettlingUpdates(0);
+        for (var command : replay.getCommands()) {
+            command.apply(played);
+        }
+        assertEquals(replay.getHash(), played.getHash(), "board at the end of the replay");
+        assertEquals(1, played.getDead().size(), "blocks killed by the replay");
+    }
+
+    public void testShippedLevelsMatchReplays() {
+        var moves = List.of(Direction.RIGHT, Direction.RIGHT, Direction.UP, Direction.RIGHT, Direction.DOWN,
+                Direction.DOWN, Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.RIGHT, Direction.RIGHT,
+                Direction.DOWN, Direction.LEFT, Direction.LEFT, Direction.UP, Direction.UP);
+        var files = new File("res/levels").listFiles((folder, name) -> name.endsWith(".csv"));
+        assertTrue(files != null && files.length > 0, "no shipped level");
+        for (var file : files) {
+            assertSameAsReplay(file, moves);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.utils.Direction;
+import baba.utils.Vector2;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class SpatialIndexTest {
+    private static final int MOVES = 60;
+
+    /**
+     * Compare findByPosition with a scan of the living blocks, on every cell of the board and around it.
+     */
+    private static void assertSameAsScan(Level level, String context) {
+        var size = level.getSize();
+        for (int y = -1; y <= size.y(); y++) {
+            for (int x = -1; x <= size.x(); x++) {
+                var position = new Vector2(x, y);
+                var scanned = level.getElements().stream().filter(block -> block.getPosition().equals(position))
+                        .toList();
+                var found = level.findByPosition(position);
+                assertEquals(identities(scanned), identities(found), "blocks at " + position + " " + context);
+
+                var previous = Integer.MIN_VALUE;
+                for (var block : found) {
+                    assertTrue(block.getPriority() >= previous, "cell not ordered by priority at " + position);
+                    previous = block.getPriority();
+                }
+            }
+        }
+    }
+
+    private static List<Integer> identities(List<Block> blocks) {
+        return blocks.stream().map(System::identityHashCode).sorted().toList();
+    }
+
+    public void testShippedLevelsMatchScan() {
+        var files = new File("res/levels").listFiles((folder, name) -> name.endsWith(".csv"));
+        assertTrue(files != null && files.length > 0, "no shipped level");
+        var directions = new Direction[] { Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT };
+        for (var file : files) {
+            var level = new Level(file, TestLevels.startingRules());
+            level.advance(Direction.NONE);
+            assertSameAsScan(level, "at the start of " + file);
+
+            var random = new Random(file.getName().hashCode());
+            for (int i = 0; i < MOVES && !level.isWon(); i++) {
+                level.advance(directions[random.nextInt(directions.length)]);
+                assertSameAsScan(level, "after " + (i + 1) + " moves on " + file);
+            }
+            while(level.undo()) {}
+            assertSameAsScan(level, "after undoing every move on " + file);
+        }
+    }
+
+    public void testIdentityChangesMatchScan() {
+        var level = TestLevels.level(
+                "ROCK,IS,FLAG,,",
+                "BABA,IS,YOU,,",
+                "OBJ_ROCK,OBJ_FLAG,OBJ_ROCK,,OBJ_BABA",
+                ",OBJ_ROCK,OBJ_ROCK,,");
+        level.advance(Direction.NONE);
+        assertSameAsScan(level, "after ROCK IS FLAG");
+        level.advance(Direction.LEFT);
+        assertSameAsScan(level, "after a move");
+        level.undo();
+        assertSameAsScan(level, "after undo");
+    }
+}
@@ -0,0 +1,69 @@
+package baba.level;
+
+import baba.block.Block;
+import baba.rules.Rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Levels written by the tests.
+ */
+public final class TestLevels {
+    private TestLevels() {}
+
+    /**
+     * Return the starting rules of the game.
+     * @return the default starting rules.
+     */
+    public static List<Rule> startingRules() {
+        return List.of(new Rule("TEXT", "IS", "PUSH"));
+    }
+
+    /**
+     * Write a level in a temporary file.
+     * @param rows the lines of the level, the tokens of each line separated by commas.
+     * @return the level file.
+     */
+    public static File file(String... rows) {
+        var width = 0;
+        for (var row : rows) {
+            width = Math.max(width, row.split(",", -1).length);
+        }
+        var lines = new ArrayList<String>();
+        lines.add(width + "," + rows.length);
+        lines.addAll(List.of(rows));
+        try {
+            var file = Files.createTempFile("baba-test-", ".csv");
+            file.toFile().deleteOnExit();
+            Files.write(file, lines);
+            return file.toFile();
+        } catch (IOException err) {
+            throw new UncheckedIOException(err);
+        }
+    }
+
+    /**
+     * Create a level from its lines, with the default starting rules.
+     * @param rows the lines of the level, the tokens of each line separated by commas.
+     * @return the level, its rules not recognized yet.
+     */
+    public static Level level(String... rows) {
+        return new Level(file(rows), startingRules());
+    }
+
+    /**
+     * Describe the living blocks of a level, as sorted identifier@x,y strings.
+     * @param blocks the blocks to describe.
+     * @return the description of the living blocks.
+     */
+    public static List<String> describe(List<Block> blocks) {
+        return blocks.stream().filter(block -> !block.isDead())
+                .map(block -> block.getID() + "@" + block.getPosition().x() + "," + block.getPosition().y())
+                .sorted().toList();
+    }
+}
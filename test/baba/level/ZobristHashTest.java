@@ -0,0 +1,53 @@
+package baba.level;
+
+import baba.block.BlockID;
+import baba.utils.Direction;
+import baba.utils.Vector2;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class ZobristHashTest {
+    public void testStackedIdenticalBlocksDoNotCancel() {
+        var level = TestLevels.level(
+                "BABA,IS,YOU",
+                "OBJ_BABA,OBJ_BABA,");
+        var empty = TestLevels.level(
+                "BABA,IS,YOU",
+                ",,");
+        var single = TestLevels.level(
+                "BABA,IS,YOU",
+                "OBJ_BABA,,");
+        level.advance(Direction.NONE);
+        empty.advance(Direction.NONE);
+        single.advance(Direction.NONE);
+        var start = level.getHash();
+
+        // The left baba is against the border, the other one moves on it.
+        level.advance(Direction.LEFT);
+        assertEquals(2, level.findByPosition(new Vector2(0, 1)).size(), "stacked babas");
+        assertEquals(level.getState().zobristHash(), level.getHash(), "incremental hash of the stacked babas");
+        assertTrue(level.getHash() != empty.getHash(), "stacked babas hash like an empty board");
+        assertTrue(level.getHash() != single.getHash(), "stacked babas hash like a single baba");
+
+        level.undo();
+        assertEquals(start, level.getHash(), "hash after undo");
+    }
+
+    public void testHashOfSingleBlocksUnchanged() {
+        // A block alone keeps the key of its attributes, so that the hashes of the replays recorded before stay valid.
+        var level = TestLevels.level(
+                "BABA,IS,YOU",
+                "OBJ_BABA,,OBJ_ROCK");
+        level.advance(Direction.NONE);
+        var expected = 0L;
+        for (var block : level.getState().toBlocks()) {
+            // Key of a block before the occurrences were hashed.
+            var position = block.getPosition();
+            var attributes = (long) BlockID.indexOf(block.getID()) << 49 | (block.isDead() ? 1L << 48 : 0)
+                    | (long) position.x() << 24 | position.y();
+            expected ^= BoardState.mix(attributes * 0x9E3779B97F4A7C15L ^ 0x2545F4914F6CDD1DL);
+        }
+        assertEquals(expected, level.getHash(), "hash of blocks which are not stacked");
+    }
+}
@@ -0,0 +1,95 @@
+package baba.rules;
+
+import baba.block.BlockID;
+import baba.block.Text;
+import baba.block.identifiers.Operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class ParserTest {
+    private static final String[] NOUNS = { "BABA", "ROCK", "WALL", "FLAG" };
+    private static final String[] PROPERTIES = { "YOU", "PUSH", "STOP", "WIN" };
+    private static final String[] TARGETS = { "LAVA", "WATER", "SKULL" };
+
+    private static List<Text> texts(String rule) {
+        return Arrays.stream(rule.split(" ")).map(token -> (Text) BlockID.valueOf(token)).toList();
+    }
+
+    /**
+     * The expansion used before the single pass split: the first AND and its neighbours are replaced by
+     * each neighbour, until no AND is left.
+     */
+    private static Set<List<Text>> oldSplit(List<Text> elements) {
+        var result = new HashSet<List<Text>>();
+        var index = elements.indexOf(Operator.AND);
+        if(index < 0) {
+            result.add(elements);
+            return result;
+        }
+        for (var kept : List.of(elements.get(index - 1), elements.get(index + 1))) {
+            var rule = new ArrayList<Text>(elements.subList(0, index - 1));
+            rule.add(kept);
+            rule.addAll(elements.subList(index + 2, elements.size()));
+            result.addAll(oldSplit(rule));
+        }
+        return result;
+    }
+
+    private static String group(String[] words, int size) {
+        return String.join(" AND ", Arrays.copyOf(words, size));
+    }
+
+    private static void assertSameAsOldSplit(String rule) {
+        var elements = texts(rule);
+        var split = Parser.splitAndRule(elements);
+        assertEquals(new HashSet<>(split).size(), split.size(), "duplicate rules for " + rule);
+        assertEquals(oldSplit(elements), new HashSet<List<Text>>(split), "split of " + rule);
+    }
+
+    public void testAndOnEachSide() {
+        for (int subjects = 1; subjects <= NOUNS.length; subjects++) {
+            for (int properties = 1; properties <= PROPERTIES.length; properties++) {
+                assertSameAsOldSplit(group(NOUNS, subjects) + " IS " + group(PROPERTIES, properties));
+            }
+        }
+    }
+
+    public void testNestedGroups() {
+        for (int subjects = 1; subjects <= NOUNS.length; subjects++) {
+            for (int targets = 1; targets <= TARGETS.length; targets++) {
+                for (int properties = 1; properties <= PROPERTIES.length; properties++) {
+                    assertSameAsOldSplit(group(NOUNS, subjects) + " ON " + group(TARGETS, targets)
+                            + " IS " + group(PROPERTIES, properties));
+                    assertSameAsOldSplit(group(NOUNS, subjects) + " HAS " + group(TARGETS, targets)
+                            + " ON " + group(PROPERTIES, properties));
+                }
+            }
+        }
+    }
+
+    public void testAndWithoutNeighbourIsIgnored() {
+        assertEquals(List.of(texts("BABA IS YOU")), Parser.splitAndRule(texts("AND BABA IS YOU")), "leading AND");
+        assertEquals(List.of(texts("BABA IS YOU")), Parser.splitAndRule(texts("BABA IS YOU AND")), "trailing AND");
+    }
+
+    public void testHugeProductIsRejected() {
+        // 40 groups of two alternatives: 2^40 rules, more than an int can count.
+        var rule = String.join(" IS ", Collections.nCopies(40, "BABA AND ROCK"));
+        var split = Parser.splitAndRule(texts(rule));
+        assertTrue(split.isEmpty(), "rule with a huge product not rejected: " + split.size() + " rules");
+
+        // 2^12 rules is the largest accepted product.
+        var largest = String.join(" IS ", Collections.nCopies(12, "BABA AND ROCK"));
+        assertEquals(Parser.MAX_AND_COMBINATIONS, Parser.splitAndRule(texts(largest)).size(), "largest product");
+        var tooLarge = String.join(" IS ", Collections.nCopies(13, "BABA AND ROCK"));
+        assertTrue(Parser.splitAndRule(texts(tooLarge)).isEmpty(), "product over the bound not rejected");
+    }
+}
@@ -0,0 +1,44 @@
+package baba.solver;
+
+import baba.level.Level;
+import baba.level.Replay;
+import baba.level.TestLevels;
+import baba.utils.Direction;
+
+import java.io.File;
+import java.time.Duration;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class SolverTest {
+    /**
+     * Solve a level, then play the solution with the commands of the game loop.
+     */
+    private static void assertSolutionWins(File file) {
+        var solver = new Solver(file, TestLevels.startingRules());
+        solver.setTimeout(Duration.ofSeconds(60));
+        var result = solver.solve();
+        assertEquals(Solver.Status.SOLVED, result.status(), "status of the search of " + file);
+
+        var level = new Level(file, TestLevels.startingRules());
+        level.advance(Direction.NONE);
+        for (var move : result.moves()) {
+            assertTrue(!level.isWon(), "won before the end of the solution of " + file);
+            Replay.Command.of(move).apply(level);
+        }
+        assertTrue(level.isWon(), "solution of " + file + " does not win: " + result.moves());
+    }
+
+    public void testSolutionOfWrittenRuleReplays() {
+        // The rule BABA IS WIN is only complete after the move, and applies in the same tick.
+        assertSolutionWins(TestLevels.file(
+                "BABA,IS,YOU,,,",
+                ",,,,,",
+                "BABA,IS,,,WIN,OBJ_BABA"));
+    }
+
+    public void testSolutionOfShippedLevelReplays() {
+        assertSolutionWins(new File("res/levels/level-6.csv"));
+    }
+}
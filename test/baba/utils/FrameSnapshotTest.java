@@ -0,0 +1,59 @@
+package baba.utils;
+
+import baba.block.Block;
+import baba.block.BlockID;
+import baba.block.identifiers.RealObject;
+import baba.level.Level;
+import baba.level.TestLevels;
+import baba.rules.Rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class FrameSnapshotTest {
+    public void testCellsOfMovingBlocksLeaveTheStaticLayer() {
+        var level = TestLevels.level(
+                "FLAG,IS,PUSH,,",
+                "BABA,IS,YOU,,",
+                "OBJ_BABA,OBJ_FLAG,OBJ_WALL,OBJ_WALL,");
+        level.advance(Direction.NONE);
+        level.advance(Direction.RIGHT);
+
+        // The flag was pushed on the first wall, which must still be drawn over it.
+        var snapshot = FrameSnapshot.of(level, 1, null);
+        var sharedCell = 2 * snapshot.size().x() + 2;
+        var flag = -1;
+        var wall = -1;
+        for (int i = 0; i < snapshot.count(); i++) {
+            if(snapshot.cell(i) == sharedCell && snapshot.id(i) == RealObject.FLAG) flag = i;
+            if(snapshot.cell(i) == sharedCell && snapshot.id(i) == RealObject.WALL) wall = i;
+            if(snapshot.cell(i) == sharedCell + 1) {
+                assertTrue(snapshot.isStatic(i), "wall alone in its cell not in the static layer");
+            }
+        }
+        assertTrue(flag >= 0 && wall >= 0, "flag not pushed on the wall");
+        assertTrue(flag < wall, "wall not over the flag in layer order");
+        assertEquals(false, snapshot.isStatic(wall), "wall sharing the cell of a moving block in the static layer");
+        assertEquals(false, snapshot.isStatic(flag), "moving flag in the static layer");
+    }
+
+    public void testStackedBlocksInCellOrder() {
+        // The texts are YOU and nothing stops them: the rock text walks onto the flag text, blocked by the edge.
+        var file = TestLevels.file(",,,ROCK,FLAG");
+        var level = new Level(file, List.of(new Rule("TEXT", "IS", "YOU")));
+        level.advance(Direction.NONE);
+        level.advance(Direction.RIGHT);
+
+        var cell = level.findByPosition(new Vector2(4, 0));
+        assertEquals(2, cell.size(), "texts stacked on the last cell");
+        var snapshot = FrameSnapshot.of(level, 1, null);
+        var order = new ArrayList<BlockID>();
+        for (int i = 0; i < snapshot.count(); i++) {
+            if(snapshot.cell(i) == 4) order.add(snapshot.id(i));
+        }
+        assertEquals(cell.stream().map(Block::getID).toList(), order, "layer order of the stacked texts");
+    }
+}
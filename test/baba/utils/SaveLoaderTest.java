@@ -0,0 +1,100 @@
+package baba.utils;
+
+import baba.block.identifiers.RealObject;
+import baba.level.BoardState;
+import baba.level.TestLevels;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static baba.Assert.assertEquals;
+import static baba.Assert.assertTrue;
+
+public class SaveLoaderTest {
+    private static final String LEVEL_NAME = "level-test";
+    // Offset of the first slot: magic, version, number of slots and the index of the slots.
+    private static final int SLOT_OFFSET = Integer.BYTES + 2 * Short.BYTES + SaveLoader.SLOTS * 2 * Integer.BYTES;
+    // Offset of the hash and of the block count of the first slot: name length and name, board size.
+    private static final int HASH_OFFSET = SLOT_OFFSET + Short.BYTES
+            + LEVEL_NAME.getBytes(StandardCharsets.UTF_8).length + 2 * Short.BYTES;
+    private static final int COUNT_OFFSET = HASH_OFFSET + Long.BYTES;
+
+    /**
+     * Save a level in the first slot of a temporary save file.
+     */
+    private static SaveLoader saveLevel() throws IOException {
+        var path = Files.createTempFile("baba-test-", ".sav");
+        path.toFile().deleteOnExit();
+        Files.delete(path);
+        var loader = new SaveLoader(path);
+        var level = TestLevels.level(
+                "BABA,IS,YOU",
+                "OBJ_BABA,,OBJ_ROCK");
+        level.advance(Direction.NONE);
+        loader.save(level, LEVEL_NAME, 0);
+        return loader;
+    }
+
+    /**
+     * Save a level, corrupt its slot, and check that loading the slot is refused with an IOException.
+     */
+    private static void assertCorruptionRejected(Consumer<ByteBuffer> corruption, String description)
+            throws IOException {
+        var loader = saveLevel();
+        Path path = loader.getPath();
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        corruption.accept(buffer);
+        Files.write(path, buffer.array());
+
+        try {
+            loader.load(0);
+        } catch (IOException err) {
+            return;
+        }
+        throw new AssertionError("corrupted save slot read: " + description);
+    }
+
+    public void testSaveAndLoad() throws IOException {
+        var loader = saveLevel();
+        var level = TestLevels.level(
+                "BABA,IS,YOU",
+                "OBJ_BABA,,OBJ_ROCK");
+        level.advance(Direction.NONE);
+
+        var save = loader.load(0);
+        assertTrue(save != null, "saved slot empty");
+        assertEquals(LEVEL_NAME, save.levelName(), "level name");
+        assertEquals(level.getState(), save.state(), "board state");
+        assertEquals(null, loader.load(1), "unsaved slot");
+    }
+
+    public void testNegativeCountRejected() throws IOException {
+        assertCorruptionRejected(buffer -> buffer.putInt(COUNT_OFFSET, -1), "a negative count");
+    }
+
+    public void testHugeCountRejected() throws IOException {
+        assertCorruptionRejected(buffer -> buffer.putInt(COUNT_OFFSET, Integer.MAX_VALUE), "a huge count");
+    }
+
+    public void testNegativeNameLengthRejected() throws IOException {
+        assertCorruptionRejected(buffer -> buffer.putShort(SLOT_OFFSET, (short) -1), "a negative name length");
+    }
+
+    public void testBlockOutOfBoardRejected() throws IOException {
+        // The hash is rewritten to match the corrupted blocks, so that only the bounds check can refuse them.
+        assertCorruptionRejected(buffer -> {
+            var count = buffer.getInt(COUNT_OFFSET);
+            var blocks = new int[count];
+            for (int i = 0; i < count; i++) {
+                blocks[i] = buffer.getInt(COUNT_OFFSET + Integer.BYTES * (i + 1));
+            }
+            blocks[0] = BoardState.pack(RealObject.ROCK, 3, 0, false);
+            buffer.putInt(COUNT_OFFSET + Integer.BYTES, blocks[0]);
+            buffer.putLong(HASH_OFFSET, BoardState.of(new Vector2(3, 2), blocks).zobristHash());
+        }, "a block out of the board");
+    }
+}